@@ -3,6 +3,7 @@ plugins {
     `groovy`
     id("maven-publish")
     id("com.gradle.plugin-publish") version "0.12.0"
+    id("me.champeau.jmh") version "0.6.5"
 }
 
 group = "com.felipefzdz.gradle.shellcheck"
@@ -20,6 +21,8 @@ repositories {
 dependencies {
     implementation(localGroovy())
     implementation("commons-io:commons-io:2.8.0")
+    implementation("org.apache.commons:commons-compress:1.20")
+    implementation("org.tukaani:xz:1.8")
     testImplementation(gradleTestKit())
     testImplementation(platform("org.spockframework:spock-bom:2.0-M4-groovy-3.0"))
     testImplementation("org.spockframework:spock-core")
@@ -72,6 +75,16 @@ val functionalTest = tasks.register("functionalTest", Test::class) {
     }
 }
 
+jmh {
+    // Every benchmark runs over generated trees and results from 10 to 100k files, narrow them down with
+    // ./gradlew jmh -Pjmh.includes=ShellcheckSourceFinderBenchmark
+    (findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+    warmupIterations.set(2)
+    iterations.set(3)
+    fork.set(1)
+    resultFormat.set("JSON")
+}
+
 tasks.named("check").configure {
     dependsOn(functionalTest)
 }
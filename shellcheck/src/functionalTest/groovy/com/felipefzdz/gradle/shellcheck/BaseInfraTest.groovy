@@ -53,6 +53,10 @@ plugins {
         runner(false, true)
     }
 
+    protected GradleRunner runnerWithConfigurationCache() {
+        runner(false, false, true)
+    }
+
     protected GradleRunner runner(boolean withDebugLogging = false, boolean withBuildCache = false, boolean withConfigurationCache = false) {
         def arguments = ["shellcheck", "--stacktrace"]
         if (withDebugLogging) {
@@ -1,5 +1,6 @@
 package com.felipefzdz.gradle.shellcheck
 
+import org.apache.commons.io.FileUtils
 import org.gradle.testkit.runner.TaskOutcome
 
 abstract class BaseShellcheckPluginFuncTest extends BaseInfraTest {
@@ -19,7 +20,9 @@ shellcheck {
 
         then:
         result.getOutput().contains("Shellcheck files with violations: 8")
-        result.getOutput().contains("Shellcheck violations by severity: 3")
+        result.getOutput().contains("Shellcheck violations by severity: error=1, warning=")
+        result.getOutput().contains("Shellcheck violations by rule: ")
+        result.getOutput().contains("SC2199=1")
 
         def report = new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.html").text
         ["script_with_violations.bash", "script_with_violations.bash_login", "script_with_violations.bash_logout",
@@ -79,6 +82,33 @@ ls /etc
         runnerWithBuildCache().build().task(":shellcheck").outcome == TaskOutcome.SUCCESS
     }
 
+    def "reuse the cached results when the project is checked out somewhere else"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("functionalTest/with_violations")
+    isIgnoreFailures = true
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        runnerWithBuildCache().build()
+        def relocated = new File(testProjectDir.root.parentFile, testProjectDir.root.name + "-relocated")
+        FileUtils.copyDirectory(testProjectDir.root, relocated)
+        FileUtils.deleteDirectory(new File(relocated, "build"))
+        FileUtils.deleteDirectory(new File(relocated, ".gradle"))
+
+        when:
+        def result = runnerWithBuildCache().withProjectDir(relocated).build()
+
+        then:
+        result.task(":shellcheck").outcome == TaskOutcome.FROM_CACHE
+        new File(relocated, "build/reports/shellcheck/shellcheck.txt").text.contains("In functionalTest/with_violations/script_with_violations.sh line")
+
+        cleanup:
+        FileUtils.deleteDirectory(relocated)
+    }
+
     def "pass the build when some scripts in the folder have violations and ignoreFailures is passed"() {
         given:
         buildFile << """
@@ -151,6 +181,8 @@ shellcheck {
         new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.html").exists()
         new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.xml").exists()
         new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.txt").exists()
+        !new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.sarif").exists()
+        !new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.json").exists()
     }
 
     def "filtrates by severity"() {
@@ -169,6 +201,667 @@ shellcheck {
 
         then:
         result.getOutput().contains("Shellcheck files with violations: 1")
-        result.getOutput().contains("Shellcheck violations by severity: 1")
+        result.getOutput().contains("Shellcheck violations: 1")
+        result.getOutput().contains("Shellcheck violations by severity: error=1\n")
+    }
+
+    def "apply a stricter severity and excluded rules without checking the scripts again"() {
+        given:
+        def buildContent = buildFile.text
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        runner().buildAndFail()
+
+        when:
+        buildFile.text = buildContent + """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    severity = "error"
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        def result = runnerWithDebugLogging().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck will check 0 files")
+        result.getOutput().contains("Shellcheck violations: 1")
+        result.getOutput().contains("Shellcheck violations by severity: error=1\n")
+
+        when:
+        buildFile.text = buildContent + """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    severity = "error"
+    excludeRules = listOf("SC2199")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        result = runnerWithDebugLogging().build()
+
+        then:
+        result.getOutput().contains("Shellcheck will check 0 files")
+        !result.getOutput().contains("Shellcheck violations were found")
+    }
+
+    def "check scripts without extension when their shebang points to a shell"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/extensionless")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        def result = runner().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck files with violations: 1")
+
+        def report = new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.xml").text
+        report.contains("script_with_violations")
+        !report.contains("python_script")
+        !report.contains("NOTES")
+    }
+
+    def "check executable scripts whose extension is not configured when their shebang points to a shell"() {
+        given:
+        def scripts = testProjectDir.newFolder("scripts")
+        def script = new File(resources, "with_violations/script_with_violations.sh").text
+        new File(scripts, "deploy.v2") << script
+        new File(scripts, "deploy.v2").setExecutable(true)
+        new File(scripts, "notes.txt") << script
+        buildFile << """
+shellcheck {
+    sources = files("${scripts.absolutePath}")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        def result = runner().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck files with violations: 1")
+        def report = new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.xml").text
+        report.contains("deploy.v2")
+        !report.contains("notes.txt")
+    }
+
+    def "check files matching the configured extensions"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    fileExtensions = listOf("txt")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        def result = runner().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck files with violations: 1")
+        new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.xml").text.contains("script_with_violations_wrong_extension.txt")
+    }
+
+    def "only check the scripts that changed since the previous run"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        runner().buildAndFail()
+
+        when:
+        new File("${resources.absolutePath}/with_violations/script_with_violations_2.sh") << "ls /"
+        def result = runnerWithDebugLogging().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck will check 1 files")
+        result.getOutput().contains("Shellcheck files with violations: 8")
+
+        when:
+        new File("${resources.absolutePath}/with_violations/script_with_violations.sh").delete()
+        result = runnerWithDebugLogging().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck will check 0 files")
+        result.getOutput().contains("Shellcheck files with violations: 7")
+    }
+
+    def "keep the previous reports when the violations of the scripts checked again did not change"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        runner().buildAndFail()
+        def report = new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.html")
+        def reportContent = report.text
+
+        when:
+        new File("${resources.absolutePath}/with_violations/script_with_violations_2.sh") << "\n# no new violation\n"
+        def result = runnerWithDebugLogging().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck will check 1 files")
+        result.getOutput().contains("Shellcheck violations did not change, keeping the previous reports")
+        result.getOutput().contains("Shellcheck files with violations: 8")
+        report.text == reportContent
+    }
+
+    def "only show the violations of the scripts checked again between continuous builds"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+tasks.named("shellcheck") {
+    continuous.set(true)
+}
+"""
+        runner().buildAndFail()
+
+        when:
+        new File("${resources.absolutePath}/with_violations/script_with_violations_2.sh") << "ls /"
+        def result = runner().buildAndFail()
+
+        then:
+        result.getOutput().contains("In functionalTest/with_violations/script_with_violations_2.sh line")
+        !result.getOutput().contains("In functionalTest/with_violations/script_with_violations.sh line")
+        result.getOutput().contains("Shellcheck violations of 7 unchanged files are not shown again.")
+        new File(testProjectDir.root, "build/shellcheck/shellcheck/snapshot").isFile()
+    }
+
+    def "check again the scripts sourcing the ones that changed"() {
+        given:
+        def scripts = testProjectDir.newFolder("scripts")
+        new File(scripts, "lib.sh") << "#!/bin/bash\ngreet() { echo hello; }\n"
+        new File(scripts, "main.sh") << "#!/bin/bash\n. ./scripts/lib.sh\ngreet\n"
+        new File(scripts, "other.sh") << "#!/bin/bash\necho other\n"
+        buildFile << """
+shellcheck {
+    sources = files("scripts")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        runner().build()
+
+        when:
+        new File(scripts, "lib.sh") << "greet_again() { echo hello; }\n"
+        def result = runnerWithDebugLogging().build()
+
+        then:
+        result.getOutput().contains("Shellcheck will also check 1 files sourcing the changed ones")
+        result.getOutput().contains("Shellcheck will check 2 files")
+    }
+
+    def "check again the scripts sourced by the ones that changed"() {
+        given:
+        def scripts = testProjectDir.newFolder("scripts")
+        new File(scripts, "lib.sh") << "#!/bin/bash\nexport greeting=hello\n"
+        new File(scripts, "main.sh") << "#!/bin/bash\n. ./scripts/lib.sh\necho \"\$greeting\"\n"
+        buildFile << """
+shellcheck {
+    sources = files("scripts")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        runner().build()
+
+        when:
+        new File(scripts, "main.sh") << "echo \"\$greeting\" again\n"
+        def result = runnerWithDebugLogging().build()
+
+        then:
+        result.getOutput().contains("Shellcheck will also check 1 files sourced by the ones checked again")
+        result.getOutput().contains("Shellcheck will check 2 files")
+        !result.getOutput().contains("Shellcheck violations were found")
+    }
+
+    def "split the scripts in shards checked by several workers"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    shardSize = 3
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        def result = runnerWithDebugLogging().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck submitted 3 shards")
+        result.getOutput().contains("Shellcheck files with violations: 8")
+    }
+
+    def "keep the scripts sourcing one another in the same shard"() {
+        given:
+        def scripts = testProjectDir.newFolder("scripts")
+        new File(scripts, "lib.sh") << "#!/bin/bash\nexport greeting=hello\n"
+        new File(scripts, "main.sh") << "#!/bin/bash\n. ./scripts/lib.sh\necho \"\$greeting\"\n"
+        buildFile << """
+shellcheck {
+    sources = files("scripts")
+    shardSize = 1
+    severity = "style"
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        def result = runnerWithDebugLogging().build()
+
+        then:
+        result.getOutput().contains("Shellcheck submitted 1 shards")
+        !result.getOutput().contains("Shellcheck violations were found")
+    }
+
+    def "cap the shellcheck processes running at once across the build"() {
+        given:
+        testProjectDir.newFile("gradle.properties") << "shellcheck.maxConcurrentProcesses=1"
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    shardSize = 3
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        def result = runnerWithDebugLogging().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck submitted 3 shards")
+        result.getOutput().contains("Shellcheck files with violations: 8")
+    }
+
+    def "reuse the configuration cache and report the same violations"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        runnerWithConfigurationCache().buildAndFail()
+        def result = runnerWithConfigurationCache().buildAndFail()
+
+        then:
+        result.getOutput().contains("Reusing configuration cache.")
+        result.getOutput().contains("Shellcheck files with violations: 8")
+    }
+
+    def "record the metrics of every phase"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        def result = runner().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck checked 8 files as 1 shards in ")
+        def metrics = new File(testProjectDir.root, "build/shellcheck-metrics/shellcheck.json").text
+        metrics.contains('"task":":shellcheck"')
+        metrics.contains('"files":8')
+        metrics.contains('"shards":1')
+        metrics.contains('"discovery":')
+        metrics.contains('"check":')
+        metrics.contains('"htmlReport":')
+        metrics.contains('"xmlReport":')
+        metrics.contains('"reports":')
+    }
+
+    def "stop checking once the violation limit is reached"() {
+        given:
+        testProjectDir.newFile("gradle.properties") << "org.gradle.workers.max=1"
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    maxWarnings = 0
+    shardSize = 1
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+
+        when:
+        def result = runner().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck stopped early after finding more than 0 warnings.")
+        result.getOutput().contains("Shellcheck files with violations: 1")
+        new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.xml").text.contains("truncated='more than 0 warnings'")
+        def txtReport = new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.txt").text
+        txtReport.contains("these are only some of the violations")
+        result.getOutput().contains(txtReport.trim())
+    }
+
+    def "generate sarif and json reports when enabled"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+tasks.withType<com.felipefzdz.gradle.shellcheck.Shellcheck>().configureEach {
+    reports {
+        sarif.required.set(true)
+        json.required.set(true)
+    }
+}
+"""
+
+        when:
+        runner().buildAndFail()
+
+        then:
+        def sarif = new groovy.json.JsonSlurper().parse(new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.sarif"))
+        sarif.version == "2.1.0"
+        sarif.runs[0].tool.driver.rules.any { it.id == "SC2199" && it.helpUri == "https://www.shellcheck.net/wiki/SC2199" }
+        sarif.runs[0].results.any { it.ruleId == "SC2199" && it.level == "error" }
+        sarif.runs[0].originalUriBaseIds["%SRCROOT%"].uri == null
+        !new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.sarif").text.contains(testProjectDir.root.absolutePath)
+        def json = new groovy.json.JsonSlurper().parse(new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.json"))
+        json.comments.any { it.code == 2199 }
+    }
+
+    def "render a report with the renderer configured for the task"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    isIgnoreFailures = true
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+tasks.named<com.felipefzdz.gradle.shellcheck.Shellcheck>("shellcheck") {
+    reports {
+        renderers.put("txt", com.felipefzdz.gradle.shellcheck.ShellcheckReportRenderer { model, destination ->
+            destination.writeText("Files with violations: \${model.result.violationsByFile.size}")
+        })
+    }
+}
+"""
+
+        when:
+        runner().build()
+
+        then:
+        new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.txt").text == "Files with violations: 8"
+        new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.xml").text.contains("<checkstyle")
+    }
+
+    def "render the reports again when their renderer changes"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    isIgnoreFailures = true
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+tasks.named<com.felipefzdz.gradle.shellcheck.Shellcheck>("shellcheck") {
+    reports {
+        renderers.put("txt", com.felipefzdz.gradle.shellcheck.ShellcheckReportRenderer { _, destination ->
+            destination.writeText("first renderer")
+        })
+    }
+}
+"""
+        runner().build()
+        def report = new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.txt")
+
+        when:
+        buildFile.text = buildFile.text.replace("first renderer", "second renderer")
+        def result = runner().build()
+
+        then:
+        result.task(":shellcheck").outcome == TaskOutcome.SUCCESS
+        report.text == "second renderer"
+    }
+
+    def "fail when a renderer overrides none of the reports"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    isIgnoreFailures = true
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+tasks.named<com.felipefzdz.gradle.shellcheck.Shellcheck>("shellcheck") {
+    reports {
+        renderers.put("csv", com.felipefzdz.gradle.shellcheck.ShellcheckReportRenderer { _, destination ->
+            destination.writeText("file,line")
+        })
+    }
+}
+"""
+
+        when:
+        def result = runner().buildAndFail()
+
+        then:
+        result.getOutput().contains("No Shellcheck report named csv")
+    }
+
+    def "render the reports concurrently"() {
+        given:
+        buildFile << """
+val rendering = java.util.concurrent.CountDownLatch(2)
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    isIgnoreFailures = true
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+tasks.named<com.felipefzdz.gradle.shellcheck.Shellcheck>("shellcheck") {
+    reports {
+        // Each renderer waits for the other one to start, which only happens when both run at the same time
+        listOf("xml", "txt").forEach { name ->
+            renderers.put(name, com.felipefzdz.gradle.shellcheck.ShellcheckReportRenderer { _, destination ->
+                rendering.countDown()
+                check(rendering.await(30, java.util.concurrent.TimeUnit.SECONDS)) { "The reports were not rendered concurrently" }
+                destination.writeText(name)
+            })
+        }
+    }
+}
+"""
+
+        when:
+        runner().build()
+
+        then:
+        new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.xml").text == "xml"
+        new File(testProjectDir.root, "build/reports/shellcheck/shellcheck.txt").text == "txt"
+    }
+
+    def "only check the files changed since a git ref"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/with_violations")
+    onlyChangedSince = "HEAD"
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        git("init", "-q")
+        git("add", "-A")
+        git("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", "initial")
+        new File(resources, "with_violations/script_with_violations.sh") << "\necho \$UNSET\n"
+
+        when:
+        def result = runnerWithDebugLogging().buildAndFail()
+
+        then:
+        result.getOutput().contains("Shellcheck will check 1 files")
+        result.getOutput().contains("Shellcheck files with violations: 1")
+    }
+
+    def "merge the results of every project into the aggregate report"() {
+        given:
+        new File(testProjectDir.root, "settings.gradle") << """
+include("a", "b")
+"""
+        ["a": "with_violations", "b": "another_without_violations"].each { project, scripts ->
+            def projectDir = testProjectDir.newFolder(project)
+            new File(projectDir, "build.gradle.kts") << """
+plugins {
+    id("com.felipefzdz.gradle.shellcheck")
+}
+shellcheck {
+    sources = files("${resources.absolutePath}/$scripts")
+    isIgnoreFailures = true
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        }
+
+        when:
+        def result = runner().withArguments("shellcheckAggregateReport", "--stacktrace").build()
+
+        then:
+        result.task(":shellcheckAggregateReport").outcome == TaskOutcome.SUCCESS
+        result.getOutput().contains("across 3 tasks")
+        def xml = new XmlSlurper().parse(new File(testProjectDir.root, "build/reports/shellcheck/aggregate/shellcheck.xml"))
+        xml.file.size() == 8
+        xml.project.find { it.@path == ":a:shellcheck" }.@files == "8"
+        xml.project.find { it.@path == ":b:shellcheck" }.@violations == "0"
+        xml.rule.find { it.@id == "SC2199" }.@violations == "1"
+        def sarif = new groovy.json.JsonSlurper().parse(new File(testProjectDir.root, "build/reports/shellcheck/aggregate/shellcheck.sarif"))
+        sarif.runs[0].results.any { it.ruleId == "SC2199" && it.locations[0].physicalLocation.artifactLocation.uriBaseId == "%SRCROOT%" }
+        new File(testProjectDir.root, "build/reports/shellcheck/aggregate/shellcheck.html").text.contains(":a:shellcheck")
+
+        when:
+        result = runner().withArguments("shellcheckAggregateReport", "--stacktrace").build()
+
+        then:
+        result.task(":shellcheckAggregateReport").outcome == TaskOutcome.UP_TO_DATE
+    }
+
+    def "aggregate the results of the tasks registered by the build scripts of other projects"() {
+        given:
+        new File(testProjectDir.root, "settings.gradle") << """
+include("a")
+"""
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+"""
+        def projectDir = testProjectDir.newFolder("a")
+        new File(projectDir, "build.gradle.kts") << """
+plugins {
+    id("com.felipefzdz.gradle.shellcheck")
+}
+shellcheck {
+    sources = files("${resources.absolutePath}/another_without_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+tasks.register<com.felipefzdz.gradle.shellcheck.Shellcheck>("shellcheckMore") {
+    sources.setFrom(files("${resources.absolutePath}/with_violations"))
+    resultsDir.set(layout.buildDirectory.dir("more-results"))
+    ignoreFailures = true
+}
+"""
+
+        when:
+        def result = runner().withArguments("shellcheckAggregateReport", "--stacktrace").build()
+
+        then:
+        result.task(":a:shellcheckMore").outcome == TaskOutcome.SUCCESS
+        result.getOutput().contains("across 3 tasks")
+        def xml = new XmlSlurper().parse(new File(testProjectDir.root, "build/reports/shellcheck/aggregate/shellcheck.xml"))
+        xml.project.find { it.@path == ":a:shellcheckMore" }.@files == "8"
+    }
+
+    def "render the aggregate HTML report with the stylesheet of the root project"() {
+        given:
+        def stylesheet = testProjectDir.newFile("custom.xsl")
+        stylesheet << """<?xml version="1.0"?>
+<xsl:stylesheet version="1.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform">
+    <xsl:output method="html"/>
+    <xsl:template match="/">
+        <html><body>Custom aggregate of <xsl:value-of select="count(checkstyle/project)"/> tasks</body></html>
+    </xsl:template>
+</xsl:stylesheet>
+"""
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    useDocker = $useDocker
+    shellcheckBinary = "$shellcheckBinary" 
+}
+
+tasks.named<com.felipefzdz.gradle.shellcheck.Shellcheck>("shellcheck") {
+    reports {
+        html.stylesheet = resources.text.fromFile("custom.xsl")
+    }
+}
+"""
+
+        when:
+        runner().withArguments("shellcheckAggregateReport", "--stacktrace").build()
+
+        then:
+        new File(testProjectDir.root, "build/reports/shellcheck/aggregate/shellcheck.html").text.contains("Custom aggregate of 1 tasks")
+
+        when:
+        stylesheet.text = stylesheet.text.replace("Custom aggregate", "Restyled aggregate")
+        def result = runner().withArguments("shellcheckAggregateReport", "--stacktrace").build()
+
+        then:
+        result.task(":shellcheckAggregateReport").outcome == TaskOutcome.SUCCESS
+        new File(testProjectDir.root, "build/reports/shellcheck/aggregate/shellcheck.html").text.contains("Restyled aggregate of 1 tasks")
+    }
+
+    private void git(String... arguments) {
+        def process = (["git"] + arguments.toList()).execute(null, testProjectDir.root)
+        process.waitForProcessOutput(System.out, System.err)
+        assert process.exitValue() == 0
     }
 }
@@ -0,0 +1,116 @@
+package com.felipefzdz.gradle.shellcheck
+
+import com.sun.net.httpserver.HttpServer
+
+import java.security.MessageDigest
+
+class ShellcheckDistributionPluginFuncTest extends BaseInfraTest {
+    boolean useDocker = false
+    String shellcheckBinary = "/usr/local/bin/shellcheck"
+
+    HttpServer server
+    List<String> requests = Collections.synchronizedList([])
+    File archive
+    // The Gradle user home of TestKit outlives a single test, a unique version keeps every test downloading
+    String shellcheckVersion = "v0.7.1-${UUID.randomUUID()}"
+
+    def setup() {
+        archive = new File(resources, "distribution/shellcheck.tar.xz")
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/") { exchange ->
+            requests << exchange.requestURI.path
+            exchange.sendResponseHeaders(200, archive.length())
+            exchange.responseBody.withStream { it << archive.bytes }
+        }
+        server.start()
+    }
+
+    def cleanup() {
+        server.stop(0)
+    }
+
+    def "download, verify and reuse the shellcheck release"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    useDocker = false
+    installer = "download"
+    shellcheckVersion = "$shellcheckVersion"
+    shellcheckDistributionBaseUrl = "http://localhost:${server.address.port}"
+    shellcheckDistributionChecksum = "${sha256(archive)}"
+}
+"""
+
+        when:
+        def firstOutput = runner().build().output
+        def secondOutput = runnerWithBuildCache().build().output
+
+        then:
+        firstOutput.contains("Downloading Shellcheck from")
+        !secondOutput.contains("Downloading Shellcheck from")
+        requests.size() == 1
+        requests.first().startsWith("/$shellcheckVersion/shellcheck-${shellcheckVersion}.")
+        requests.first().endsWith(".tar.xz")
+    }
+
+    def "fail when the downloaded release does not match the configured checksum"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    useDocker = false
+    installer = "download"
+    shellcheckVersion = "$shellcheckVersion"
+    shellcheckDistributionBaseUrl = "http://localhost:${server.address.port}"
+    shellcheckDistributionChecksum = "0000"
+}
+"""
+
+        expect:
+        runner().buildAndFail().output.contains("Checksum mismatch")
+    }
+
+    def "verify the provisioned release again when the configured checksum changes"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    useDocker = false
+    installer = "download"
+    shellcheckVersion = "$shellcheckVersion"
+    shellcheckDistributionBaseUrl = "http://localhost:${server.address.port}"
+    shellcheckDistributionChecksum = "${sha256(archive)}"
+}
+"""
+        runner().build()
+        buildFile.text = buildFile.text.replace(sha256(archive), "0000")
+
+        when:
+        def output = runner().buildAndFail().output
+
+        then:
+        output.contains("Checksum mismatch")
+        requests.size() == 2
+    }
+
+    def "fail when no checksum is configured"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    useDocker = false
+    installer = "download"
+    shellcheckVersion = "$shellcheckVersion"
+    shellcheckDistributionBaseUrl = "http://localhost:${server.address.port}"
+}
+"""
+
+        expect:
+        runner().buildAndFail().output.contains("No checksum configured for http://localhost:${server.address.port}/$shellcheckVersion/shellcheck-${shellcheckVersion}.")
+    }
+
+    private static String sha256(File file) {
+        MessageDigest.getInstance("SHA-256").digest(file.bytes).encodeHex().toString()
+    }
+}
@@ -1,7 +1,5 @@
 package com.felipefzdz.gradle.shellcheck
 
-import org.gradle.testkit.runner.GradleRunner
-
 class ShellcheckDockerPluginFuncTest extends BaseShellcheckPluginFuncTest {
     boolean useDocker = true
     String shellcheckBinary = "shellcheck"
@@ -79,8 +77,4 @@ shellcheck {
         then:
         result.contains("Environment keys after preparing it for isolated Shellcheck execution: [PATH, HOME]")
     }
-
-    private GradleRunner runnerWithConfigurationCache() {
-        runner(false, false, true)
-    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.felipefzdz.gradle.shellcheck
+
+import org.apache.commons.io.FileUtils
+import org.gradle.testkit.runner.GradleRunner
+
+import java.lang.management.ManagementFactory
+
+class ShellcheckDockerShimPluginFuncTest extends BaseInfraTest {
+    // The real Docker is never used, the shim below takes its place on the PATH
+    boolean useDocker = false
+    String shellcheckBinary = "shellcheck"
+
+    File dockerLog
+    // The pid and host of this JVM, which stays alive while the build runs
+    String liveOwner = ManagementFactory.runtimeMXBean.name
+    String staleOwner = "2147483647@${liveOwner.substring(liveOwner.indexOf('@') + 1)}"
+    // Images are pulled once per Gradle daemon, which TestKit shares between tests, a unique version keeps every test pulling
+    String shellcheckVersion = "v0.7.1-${UUID.randomUUID()}"
+
+    def setup() {
+        def shimDir = testProjectDir.newFolder('docker-shim')
+        dockerLog = new File(shimDir, 'docker.log')
+        def pulled = new File(shimDir, 'pulled')
+        def docker = new File(shimDir, 'docker')
+        docker << """#!/usr/bin/env bash
+echo "\$*" >> "${dockerLog.absolutePath}"
+case "\$1" in
+    image) [ -f "${pulled.absolutePath}" ] && echo "sha256:0123456789abcdef" || exit 1 ;;
+    pull) touch "${pulled.absolutePath}" ;;
+    run) [ "\$2" = "-d" ] && echo "0123456789abcdef" || echo '{"comments":[]}' ;;
+    exec) echo '{"comments":[]}' ;;
+    ps) echo "fedcba9876543210 $staleOwner" && echo "abcdef0123456789 $liveOwner" ;;
+esac
+"""
+        docker.setExecutable(true)
+    }
+
+    def "reuse a single container across tasks and remove it when the build finishes"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    shellcheckVersion = "$shellcheckVersion"
+    useDocker = true
+}
+
+tasks.register<com.felipefzdz.gradle.shellcheck.Shellcheck>("shellcheckMore") {
+    sources.setFrom(files("${resources.absolutePath}/another_without_violations"))
+}
+"""
+
+        when:
+        shimRunner("shellcheck", "shellcheckMore").build()
+
+        then:
+        def invocations = dockerLog.readLines()
+        invocations.count { it.startsWith("run -d --rm") } == 1
+        invocations.count { it.startsWith("exec 0123456789abcdef sh -c") && it.contains(" shellcheck -f json1 ") } == 2
+        invocations.last() == "rm -f 0123456789abcdef"
+    }
+
+    def "label the containers and remove the ones left behind by daemons no longer running"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    shellcheckVersion = "$shellcheckVersion"
+    useDocker = true
+}
+"""
+
+        when:
+        shimRunner("shellcheck").build()
+
+        then:
+        def invocations = dockerLog.readLines()
+        invocations.find { it.startsWith("run -d --rm") }.contains("--label com.felipefzdz.gradle.shellcheck.owner=")
+        invocations.contains("rm -f fedcba9876543210")
+        !invocations.contains("rm -f abcdef0123456789")
+        invocations.findIndexOf { it == "rm -f fedcba9876543210" } < invocations.findIndexOf { it.startsWith("run -d --rm") }
+    }
+
+    def "start a new container per invocation when reuse is disabled"() {
+        given:
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    shellcheckVersion = "$shellcheckVersion"
+    useDocker = true
+    reuseDockerContainer = false
+}
+"""
+
+        when:
+        shimRunner("shellcheck").build()
+
+        then:
+        def invocations = dockerLog.readLines().findAll { it.startsWith("run") }
+        invocations.size() == 1
+        invocations.first().startsWith("run --rm")
+        invocations.first().contains("--name shellcheck-")
+    }
+
+    def "pull the image once before the tasks run and mount the sources read-only"() {
+        given:
+        def outside = testProjectDir.newFolder('outside')
+        def first = new File(outside, 'first')
+        def second = new File(outside, 'second')
+        FileUtils.copyDirectory(new File(resources, "without_violations"), first)
+        FileUtils.copyDirectory(new File(resources, "another_without_violations"), second)
+        buildFile << """
+shellcheck {
+    sources = files("${first.absolutePath}", "${second.absolutePath}")
+    shellcheckVersion = "$shellcheckVersion"
+    useDocker = true
+    reuseDockerContainer = false
+}
+"""
+
+        when:
+        shimRunner("shellcheck").build()
+
+        then:
+        def invocations = dockerLog.readLines()
+        invocations.count { it == "pull -q koalaman/shellcheck-alpine:$shellcheckVersion" } == 1
+        invocations.findIndexOf { it.startsWith("pull") } < invocations.findIndexOf { it.startsWith("run") }
+        def run = invocations.find { it.startsWith("run --rm") }
+        run.contains("-v ${outside.absolutePath}:${outside.absolutePath}:ro")
+        !run.contains("-v ${first.absolutePath}:")
+        !run.contains("-v ${second.absolutePath}:")
+    }
+
+    def "mount the sources outside the build as they are"() {
+        given:
+        def outside = File.createTempDir()
+        def first = new File(outside, 'first')
+        def second = new File(outside, 'second')
+        FileUtils.copyDirectory(new File(resources, "without_violations"), first)
+        FileUtils.copyDirectory(new File(resources, "another_without_violations"), second)
+        buildFile << """
+shellcheck {
+    sources = files("${first.absolutePath}", "${second.absolutePath}")
+    shellcheckVersion = "$shellcheckVersion"
+    useDocker = true
+}
+"""
+
+        when:
+        shimRunner("shellcheck").build()
+
+        then:
+        def run = dockerLog.readLines().find { it.startsWith("run -d --rm") }
+        run.contains("-v ${first.absolutePath}:${first.absolutePath}:ro")
+        run.contains("-v ${second.absolutePath}:${second.absolutePath}:ro")
+        run.contains("-v ${testProjectDir.root.absolutePath}:${testProjectDir.root.absolutePath}:ro")
+        !run.contains("-v ${outside.absolutePath}:")
+
+        cleanup:
+        FileUtils.deleteDirectory(outside)
+    }
+
+    private GradleRunner shimRunner(String... tasks) {
+        GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments(tasks.toList() + ["--stacktrace"])
+                .withProjectDir(testProjectDir.root)
+                .withEnvironment([PATH: "${dockerLog.parentFile.absolutePath}:${System.getenv('PATH')}", HOME: System.getenv('HOME')])
+    }
+}
@@ -39,11 +39,13 @@ shellcheck {
 """
 
         when:
+        runner().buildAndFail()
         def output = runnerWithDebugLogging().buildAndFail().getOutput()
 
         then:
         output.contains("Shellcheck files with violations: 8")
         output.contains("Shellcheck is already installed. Skipping installation.")
+        !output.contains("shellcheck --version returned:")
     }
 
     def "skip installing shellcheck if useDocker is true"() {
@@ -65,6 +67,6 @@ shellcheck {
 
         then:
         output.contains("Shellcheck files with violations: 8")
-        !output.contains("command shellcheck returned:")
+        !output.contains("shellcheck --version returned:")
     }
 }
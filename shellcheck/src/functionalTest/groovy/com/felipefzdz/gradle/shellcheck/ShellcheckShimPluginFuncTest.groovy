@@ -0,0 +1,146 @@
+package com.felipefzdz.gradle.shellcheck
+
+import org.gradle.testkit.runner.GradleRunner
+import org.gradle.testkit.runner.TaskOutcome
+
+class ShellcheckShimPluginFuncTest extends BaseInfraTest {
+    // The real Shellcheck is never used, the shim below takes its place
+    boolean useDocker = false
+    String shellcheckBinary
+
+    File shimDir
+
+    def setup() {
+        shimDir = testProjectDir.newFolder('shellcheck-shim')
+        shellcheckBinary = new File(shimDir, 'shellcheck').absolutePath
+    }
+
+    def "fail with the error output when shellcheck exits with an error"() {
+        given:
+        shim """
+echo '{"comments":[]}'
+echo "shim: unable to check the scripts" >&2
+exit 2
+"""
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    useDocker = false
+    shellcheckBinary = "$shellcheckBinary"
+}
+"""
+
+        when:
+        def result = runner().buildAndFail()
+
+        then:
+        result.output.contains("Shellcheck exited with code 2: shim: unable to check the scripts")
+    }
+
+    def "never run more shellcheck processes at once than the cap across projects built in parallel"() {
+        given:
+        def processes = new File(shimDir, "processes.log")
+        // Every process records when it starts and ends, staying long enough for the others to overlap with it
+        shim """
+echo "start \$(date +%s%N)" >> ${processes.absolutePath}
+sleep 1
+echo "end \$(date +%s%N)" >> ${processes.absolutePath}
+echo '{"comments":[]}'
+"""
+        testProjectDir.newFile("gradle.properties") << "shellcheck.maxConcurrentProcesses=2"
+        buildFile << """
+shellcheck {
+    useDocker = false
+    shellcheckBinary = "$shellcheckBinary"
+}
+"""
+        new File(testProjectDir.root, "settings.gradle") << """
+include("a", "b")
+"""
+        ["a", "b"].each { project ->
+            def projectDir = testProjectDir.newFolder(project)
+            def scripts = new File(projectDir, "scripts")
+            scripts.mkdirs()
+            (1..3).each { new File(scripts, "script_${it}.sh") << "#!/bin/bash\necho $it\n" }
+            new File(projectDir, "build.gradle.kts") << """
+plugins {
+    id("com.felipefzdz.gradle.shellcheck")
+}
+shellcheck {
+    sources = files("scripts")
+    shardSize = 1
+    useDocker = false
+    shellcheckBinary = "$shellcheckBinary"
+}
+"""
+        }
+
+        when:
+        runner().withArguments("shellcheck", "--parallel", "--max-workers=4", "--stacktrace").build()
+
+        then:
+        def events = processes.readLines().collect { it.split(" ") }.sort { it[1] as long }
+        events.count { it[0] == "start" } == 6
+        def running = 0
+        def maxRunning = 0
+        events.each {
+            running += it[0] == "start" ? 1 : -1
+            maxRunning = Math.max(maxRunning, running)
+        }
+        maxRunning == 2
+    }
+
+    def "probe the binary found on the PATH again once it is replaced"() {
+        given:
+        def path = testProjectDir.newFolder('path')
+        def binary = new File(path, 'shellcheck')
+        shim(binary, "0.7.1", """echo '{"comments":[]}'""")
+        buildFile << """
+shellcheck {
+    sources = files("${resources.absolutePath}/without_violations")
+    useDocker = false
+    shellcheckBinary = "shellcheck"
+}
+"""
+        pathRunner(path, "shellcheck", "--build-cache").build()
+
+        when:
+        binary.delete()
+        shim(binary, "0.8.0-upgraded", """echo '{"comments":[]}'""")
+        def result = pathRunner(path, "clean", "shellcheck", "--build-cache").build()
+
+        then:
+        result.task(":shellcheck").outcome == TaskOutcome.SUCCESS
+
+        when:
+        result = pathRunner(path, "clean", "shellcheck", "--build-cache").build()
+
+        then:
+        result.task(":shellcheck").outcome == TaskOutcome.FROM_CACHE
+    }
+
+    private void shim(String check) {
+        shim(new File(shellcheckBinary), "0.7.1", check)
+    }
+
+    private static void shim(File shim, String version, String check) {
+        shim << """#!/usr/bin/env bash
+if [ "\$1" = "--version" ]; then
+    echo "version: $version"
+    exit 0
+fi
+$check
+"""
+        shim.setExecutable(true)
+    }
+
+    // The daemon looks the binary up on this PATH, which cannot be set on a runner debugging in process
+    private GradleRunner pathRunner(File path, String... arguments) {
+        GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments(arguments.toList() + ["--stacktrace"])
+                .withProjectDir(testProjectDir.root)
+                .withEnvironment([PATH: "${path.absolutePath}:${System.getenv('PATH')}", HOME: System.getenv('HOME')])
+    }
+}
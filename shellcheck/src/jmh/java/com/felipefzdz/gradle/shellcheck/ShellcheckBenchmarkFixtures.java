@@ -0,0 +1,97 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Generated source trees and Shellcheck results shared by the benchmarks.
+ */
+class ShellcheckBenchmarkFixtures {
+
+    private static final int FILES_PER_DIRECTORY = 50;
+    private static final String[] LEVELS = {"error", "warning", "info", "style"};
+    private static final int[] CODES = {2086, 2154, 2034, 2199, 1091};
+
+    /**
+     * A tree of the given number of files, nested a few levels deep, where most files are scripts by extension and the
+     * rest are either extensionless scripts with a shebang or files that must be ignored.
+     */
+    static Path sourceTree(int files) throws IOException {
+        final Path root = Files.createTempDirectory("shellcheck-jmh-tree");
+        for (int i = 0; i < files; i++) {
+            final int directory = i / FILES_PER_DIRECTORY;
+            final Path parent = root.resolve("module-" + directory % 10).resolve("dir-" + directory);
+            Files.createDirectories(parent);
+            switch (i % 10) {
+                case 0:
+                    write(parent.resolve("script-" + i), "#!/usr/bin/env bash\necho " + i + "\n");
+                    break;
+                case 1:
+                    write(parent.resolve("README-" + i), "Not a script\n");
+                    break;
+                case 2:
+                    write(parent.resolve("data-" + i + ".txt"), "some data\n");
+                    break;
+                default:
+                    write(parent.resolve("script-" + i + ".sh"), "#!/bin/sh\necho $" + i + "\n");
+            }
+        }
+        return root;
+    }
+
+    static List<ShellcheckViolation> violations(int files, int violationsPerFile) {
+        final List<ShellcheckViolation> violations = new ArrayList<>(files * violationsPerFile);
+        for (int i = 0; i < files; i++) {
+            final String file = "/project/scripts/dir-" + i / FILES_PER_DIRECTORY + "/script-" + i + ".sh";
+            for (int j = 0; j < violationsPerFile; j++) {
+                violations.add(new ShellcheckViolation(file, j + 1, j + 1, 6, 8, LEVELS[(i + j) % LEVELS.length],
+                        CODES[(i + j) % CODES.length], "Double quote to prevent globbing and word splitting."));
+            }
+        }
+        return violations;
+    }
+
+    static String json1(List<ShellcheckViolation> violations) throws IOException {
+        final StringWriter writer = new StringWriter();
+        ShellcheckJsonWriter.write(violations, writer);
+        return writer.toString();
+    }
+
+    static ShellcheckResult result(List<ShellcheckViolation> violations) {
+        final ShellcheckResult.Builder builder = ShellcheckResult.builder();
+        violations.forEach(builder::add);
+        return builder.build();
+    }
+
+    static File checkstyleReport(ShellcheckResult result) throws IOException {
+        final File report = File.createTempFile("shellcheck-jmh", ".xml");
+        try (Writer writer = Files.newBufferedWriter(report.toPath(), StandardCharsets.UTF_8)) {
+            ShellcheckCheckstyleWriter.write(result, writer);
+        }
+        return report;
+    }
+
+    static void delete(Path path) throws IOException {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path each : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(each);
+            }
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
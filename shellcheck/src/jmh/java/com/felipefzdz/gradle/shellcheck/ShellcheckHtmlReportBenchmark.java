@@ -0,0 +1,66 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the HTML report out of the checkstyle report, with three violations per file, comparing the cached
+ * compiled stylesheet against compiling it on every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShellcheckHtmlReportBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int files;
+
+    private byte[] stylesheet;
+    private File report;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream input = ShellcheckInvoker.class.getClassLoader().getResourceAsStream("shellcheck-noframes-sorted.xsl")) {
+            stylesheet = IOUtils.toByteArray(input);
+        }
+        report = ShellcheckBenchmarkFixtures.checkstyleReport(ShellcheckBenchmarkFixtures.result(ShellcheckBenchmarkFixtures.violations(files, 3)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(report.toPath());
+    }
+
+    @Benchmark
+    public void transformWithCachedStylesheet() throws TransformerException {
+        ShellcheckStylesheets.compile(stylesheet).newTransformer()
+                .transform(new StreamSource(report), new StreamResult(NullOutputStream.NULL_OUTPUT_STREAM));
+    }
+
+    @Benchmark
+    public void transformCompilingStylesheet() throws TransformerException {
+        TransformerFactory.newInstance().newTransformer(new StreamSource(new ByteArrayInputStream(stylesheet)))
+                .transform(new StreamSource(report), new StreamResult(NullOutputStream.NULL_OUTPUT_STREAM));
+    }
+}
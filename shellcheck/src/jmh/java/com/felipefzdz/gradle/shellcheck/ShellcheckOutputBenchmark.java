@@ -0,0 +1,76 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handling of the output of a Shellcheck process, replayed with {@code cat} over the {@code json1} output of a run
+ * with three violations per file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShellcheckOutputBenchmark {
+
+    private static final Logger LOGGER = Logging.getLogger(ShellcheckOutputBenchmark.class);
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int files;
+
+    private File json;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        json = File.createTempFile("shellcheck-jmh", ".json");
+        output = File.createTempFile("shellcheck-jmh", ".out");
+        Files.write(json.toPath(), ShellcheckBenchmarkFixtures.json1(ShellcheckBenchmarkFixtures.violations(files, 3)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(json.toPath());
+        Files.deleteIfExists(output.toPath());
+    }
+
+    @Benchmark
+    public int execToFile() throws IOException, InterruptedException {
+        try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(output))) {
+            return Shell.exec(Arrays.asList("cat", json.getAbsolutePath()), null, LOGGER, stream).getExitCode();
+        }
+    }
+
+    @Benchmark
+    public int execToFileAndParser() throws IOException, InterruptedException {
+        final int[] violations = new int[1];
+        ShellcheckOutputTee.run(output, violation -> violations[0]++,
+                tee -> Shell.exec(Arrays.asList("cat", json.getAbsolutePath()), null, LOGGER, tee));
+        return violations[0];
+    }
+
+    @Benchmark
+    public int execDiscardingOutput() throws IOException, InterruptedException {
+        return Shell.exec(Arrays.asList("cat", json.getAbsolutePath()), null, LOGGER, NullOutputStream.NULL_OUTPUT_STREAM).getExitCode();
+    }
+}
@@ -0,0 +1,60 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the {@code json1} output into the result model, the violation summary and the checkstyle report, with
+ * three violations per file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShellcheckReportBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int files;
+
+    private String json;
+    private ShellcheckResult result;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        json = ShellcheckBenchmarkFixtures.json1(ShellcheckBenchmarkFixtures.violations(files, 3));
+        result = ShellcheckJsonParser.parse(json);
+    }
+
+    @Benchmark
+    public ShellcheckResult parse() throws IOException {
+        return ShellcheckJsonParser.parse(json);
+    }
+
+    @Benchmark
+    public ShellcheckSummary parseAndSummarize() throws IOException {
+        final ShellcheckSummary summary = new ShellcheckSummary();
+        ShellcheckJsonParser.parse(new StringReader(json), summary);
+        return summary;
+    }
+
+    @Benchmark
+    public ShellcheckSummary summarize() {
+        return ShellcheckSummary.of(result);
+    }
+
+    @Benchmark
+    public void writeCheckstyle() throws IOException {
+        ShellcheckCheckstyleWriter.write(result, NullWriter.NULL_WRITER);
+    }
+}
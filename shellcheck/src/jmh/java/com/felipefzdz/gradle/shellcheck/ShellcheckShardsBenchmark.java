@@ -0,0 +1,61 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting the scripts found in source trees of growing size into shards, balanced by size or by count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShellcheckShardsBenchmark {
+
+    private static final int SHARDS = 32;
+    private static final int MAX_ARGUMENTS_LENGTH = 128 * 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int files;
+
+    private Path root;
+    private List<File> scripts;
+    private List<List<File>> groups;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = ShellcheckBenchmarkFixtures.sourceTree(files);
+        scripts = ShellcheckSourceFinder.find(Collections.singletonList(root.toFile()), ShellcheckSourceFinder.DEFAULT_EXTENSIONS);
+        // The generated scripts source nothing, so each one is a group of its own
+        groups = ShellcheckShards.groups(scripts, script -> Collections.emptyList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ShellcheckBenchmarkFixtures.delete(root);
+    }
+
+    @Benchmark
+    public List<List<File>> bySize() {
+        return ShellcheckShards.bySize(groups, SHARDS, MAX_ARGUMENTS_LENGTH);
+    }
+
+    @Benchmark
+    public List<List<File>> byCount() {
+        return ShellcheckShards.byCount(groups, (scripts.size() + SHARDS - 1) / SHARDS, MAX_ARGUMENTS_LENGTH);
+    }
+}
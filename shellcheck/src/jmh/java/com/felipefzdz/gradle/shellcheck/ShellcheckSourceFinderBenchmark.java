@@ -0,0 +1,48 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discovery of the scripts to check in source trees of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShellcheckSourceFinderBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int files;
+
+    private Path root;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = ShellcheckBenchmarkFixtures.sourceTree(files);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ShellcheckBenchmarkFixtures.delete(root);
+    }
+
+    @Benchmark
+    public List<File> find() {
+        return ShellcheckSourceFinder.find(Collections.singletonList(root.toFile()), ShellcheckSourceFinder.DEFAULT_EXTENSIONS);
+    }
+}
@@ -1,17 +1,25 @@
 package com.felipefzdz.gradle.shellcheck;
 
+import org.apache.commons.io.IOUtils;
 import org.gradle.api.logging.Logger;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static java.util.Arrays.asList;
 
 public class Shell {
+    private static final int MAX_ERROR_OUTPUT = 64 * 1024;
+
     static String run(String command, File projectDir, Logger logger) throws IOException, InterruptedException {
         return run(asList(command.split("\\s+")), projectDir, logger);
     }
@@ -39,6 +47,74 @@ public class Shell {
         return processOutput.toString().trim();
     }
 
+    /**
+     * Runs a command streaming its standard output into the given sink as it is produced. The standard error is
+     * captured separately, keeping at most its first {@value #MAX_ERROR_OUTPUT} bytes.
+     */
+    static ExecResult exec(List<String> command, File projectDir, Logger logger, OutputStream output) throws IOException, InterruptedException {
+        return exec(command, projectDir, logger, output, process -> {
+        });
+    }
+
+    /**
+     * Like {@link #exec(List, File, Logger, OutputStream)}, handing the process to the given callback as soon as it starts.
+     */
+    static ExecResult exec(List<String> command, File projectDir, Logger logger, OutputStream output, Consumer<Process> started) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(projectDir)
+                .redirectOutput(ProcessBuilder.Redirect.PIPE)
+                .redirectError(ProcessBuilder.Redirect.PIPE);
+        prepareEnvironment(logger, builder.environment());
+
+        Process process = builder.start();
+        started.accept(process);
+
+        final ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+        final Thread errorReader = new Thread(() -> capture(process.getErrorStream(), errorOutput), "shellcheck-stderr-reader");
+        errorReader.setDaemon(true);
+        errorReader.start();
+
+        try (InputStream processOutput = process.getInputStream()) {
+            IOUtils.copy(processOutput, output);
+        }
+        final int exitCode = process.waitFor();
+        errorReader.join();
+        return new ExecResult(exitCode, new String(errorOutput.toByteArray(), StandardCharsets.UTF_8).trim());
+    }
+
+    private static void capture(InputStream errorStream, ByteArrayOutputStream errorOutput) {
+        final byte[] buffer = new byte[4096];
+        try (InputStream input = errorStream) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                final int kept = Math.min(read, MAX_ERROR_OUTPUT - errorOutput.size());
+                if (kept > 0) {
+                    errorOutput.write(buffer, 0, kept);
+                }
+            }
+        } catch (IOException ignored) {
+            // The process is gone, whatever was captured is all there is
+        }
+    }
+
+    static class ExecResult {
+        private final int exitCode;
+        private final String errorOutput;
+
+        ExecResult(int exitCode, String errorOutput) {
+            this.exitCode = exitCode;
+            this.errorOutput = errorOutput;
+        }
+
+        int getExitCode() {
+            return exitCode;
+        }
+
+        String getErrorOutput() {
+            return errorOutput;
+        }
+    }
+
     private static void prepareEnvironment(Logger logger, final Map<String, String> environment) {
         final String path = environment.get("PATH");
         final String home = environment.get("HOME");
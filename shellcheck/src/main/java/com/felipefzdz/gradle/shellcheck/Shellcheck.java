@@ -3,9 +3,14 @@ package com.felipefzdz.gradle.shellcheck;
 import groovy.lang.Closure;
 import groovy.lang.DelegatesTo;
 import org.gradle.api.Action;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
-import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
 import org.gradle.api.reporting.Reporting;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Console;
@@ -13,32 +18,93 @@ import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.VerificationTask;
 import org.gradle.util.ClosureBackedAction;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+import org.gradle.workers.WorkerExecutor;
 
 import javax.inject.Inject;
-import java.io.File;
+
+import static org.gradle.api.internal.lambdas.SerializableLambdas.spec;
 
 @CacheableTask
-public class Shellcheck extends ConventionTask implements VerificationTask, Reporting<ShellcheckReports> {
+public class Shellcheck extends DefaultTask implements VerificationTask, Reporting<ShellcheckReports> {
 
-    private FileCollection sources;
+    private final ConfigurableFileCollection sources;
 
     private final ShellcheckReports reports;
-    private boolean showViolations = true;
-    private boolean ignoreFailures = false;
-    private boolean useDocker = true;
-    private String shellcheckVersion;
-    private String severity;
-    private String shellcheckBinary;
-    private String installer;
-    private File projectDir;
+    private final Property<ShellcheckBuildService> buildService;
+    private final Property<Boolean> showViolations;
+    private final Property<Boolean> ignoreFailures;
+    private final Property<Boolean> useDocker;
+    private final Property<Boolean> reuseDockerContainer;
+    private final Property<String> shellcheckVersion;
+    private final Property<String> severity;
+    private final Property<String> shellcheckBinary;
+    private final Property<String> installer;
+    private final Property<String> probedShellcheckVersion;
+    private final Property<String> shellcheckDistributionBaseUrl;
+    private final Property<String> shellcheckDistributionChecksum;
+    private final ListProperty<String> fileExtensions;
+    private final ListProperty<String> includeRules;
+    private final ListProperty<String> excludeRules;
+    private final DirectoryProperty projectDir;
+    private final DirectoryProperty resultsDir;
+    private final DirectoryProperty analysisCacheDir;
+    private final DirectoryProperty gradleUserHomeDir;
+    private final RegularFileProperty metricsFile;
+    private final Property<Integer> shardSize;
+    private final Property<Integer> maxWorkers;
+    private final Property<Boolean> continuous;
+    private final Property<Integer> maxErrors;
+    private final Property<Integer> maxWarnings;
+    private final Property<String> onlyChangedSince;
+    private final Property<Boolean> externalSources;
 
     public Shellcheck() {
-        this.reports = (ShellcheckReports) getObjectFactory().newInstance(ShellcheckReportsImpl.class, this);
+        final ObjectFactory objects = getObjectFactory();
+        this.reports = (ShellcheckReports) objects.newInstance(ShellcheckReportsImpl.class, this);
+        this.buildService = objects.property(ShellcheckBuildService.class);
+        this.sources = objects.fileCollection();
+        this.showViolations = objects.property(Boolean.class).convention(true);
+        this.ignoreFailures = objects.property(Boolean.class).convention(false);
+        this.useDocker = objects.property(Boolean.class).convention(true);
+        this.reuseDockerContainer = objects.property(Boolean.class).convention(true);
+        this.shellcheckVersion = objects.property(String.class);
+        this.severity = objects.property(String.class);
+        this.shellcheckBinary = objects.property(String.class);
+        this.installer = objects.property(String.class);
+        this.probedShellcheckVersion = objects.property(String.class);
+        this.shellcheckDistributionBaseUrl = objects.property(String.class);
+        this.shellcheckDistributionChecksum = objects.property(String.class);
+        this.fileExtensions = objects.listProperty(String.class);
+        this.includeRules = objects.listProperty(String.class);
+        this.excludeRules = objects.listProperty(String.class);
+        this.projectDir = objects.directoryProperty();
+        this.resultsDir = objects.directoryProperty();
+        this.analysisCacheDir = objects.directoryProperty();
+        this.gradleUserHomeDir = objects.directoryProperty();
+        this.metricsFile = objects.fileProperty();
+        this.shardSize = objects.property(Integer.class).convention(0);
+        this.maxWorkers = objects.property(Integer.class).convention(1);
+        this.continuous = objects.property(Boolean.class).convention(false);
+        this.maxErrors = objects.property(Integer.class).convention(Integer.MAX_VALUE);
+        this.maxWarnings = objects.property(Integer.class).convention(Integer.MAX_VALUE);
+        this.onlyChangedSince = objects.property(String.class).convention("");
+        this.externalSources = objects.property(Boolean.class).convention(false);
+        // What changed since a git ref is not tracked as an input, so such a run is neither reused nor cached
+        getOutputs().upToDateWhen(spec(task -> ((Shellcheck) task).getOnlyChangedSince().get().isEmpty()));
+        getOutputs().doNotCacheIf("Only the files changed since a git ref are checked",
+                spec(task -> !((Shellcheck) task).getOnlyChangedSince().get().isEmpty()));
+        // Nor is a renderer that cannot be told apart from another one, such as a Java lambda
+        getOutputs().upToDateWhen(spec(task -> ((Shellcheck) task).hasIdentifiedRenderers()));
+        getOutputs().doNotCacheIf("Some report renderers cannot be told apart from others",
+                spec(task -> !((Shellcheck) task).hasIdentifiedRenderers()));
     }
 
     @Inject
@@ -46,19 +112,25 @@ public class Shellcheck extends ConventionTask implements VerificationTask, Repo
         throw new UnsupportedOperationException();
     }
 
+    @Inject
+    protected WorkerExecutor getWorkerExecutor() {
+        throw new UnsupportedOperationException();
+    }
+
     @TaskAction
-    public void run() {
-        ShellcheckInvoker.invoke(this);
+    public void run(InputChanges inputChanges) {
+        ShellcheckInvoker.invoke(this, inputChanges);
     }
 
+    @Incremental
     @InputFiles
     @PathSensitive(PathSensitivity.RELATIVE)
-    public FileCollection getSources() {
+    public ConfigurableFileCollection getSources() {
         return sources;
     }
 
     public void setSources(FileCollection sources) {
-        this.sources = sources;
+        this.sources.setFrom(sources);
     }
 
     /**
@@ -71,6 +143,13 @@ public class Shellcheck extends ConventionTask implements VerificationTask, Repo
 
     }
 
+    /**
+     * Whether every renderer of the reports is known by its implementation, so reports rendered before can be reused.
+     */
+    boolean hasIdentifiedRenderers() {
+        return !reports.getRendererImplementations().get().containsValue(ShellcheckReportRenderers.UNIDENTIFIED);
+    }
+
     /**
      * Configures the reports to be generated by this task.
      * <p>
@@ -89,7 +168,9 @@ public class Shellcheck extends ConventionTask implements VerificationTask, Repo
      * @param closure The configuration
      * @return The reports container
      */
+    // Raw, like the method of Reporting it implements
     @Override
+    @SuppressWarnings("rawtypes")
     public ShellcheckReports reports(@DelegatesTo(value = ShellcheckReports.class, strategy = Closure.DELEGATE_FIRST) Closure closure) {
         return reports(new ClosureBackedAction<>(closure));
     }
@@ -120,89 +201,205 @@ public class Shellcheck extends ConventionTask implements VerificationTask, Repo
 
     /**
      * Whether rule violations are to be displayed on the console.
-     *
-     * @return true if violations should be displayed on console
      */
     @Console
-    public boolean isShowViolations() {
+    public Property<Boolean> getShowViolations() {
         return showViolations;
     }
 
+    @Input
+    public Property<String> getShellcheckVersion() {
+        return shellcheckVersion;
+    }
+
+    @Override
+    public void setIgnoreFailures(boolean ignoreFailures) {
+        this.ignoreFailures.set(ignoreFailures);
+    }
+
+    @Override
+    public boolean getIgnoreFailures() {
+        return ignoreFailures.get();
+    }
+
     /**
-     * Whether rule violations are to be displayed on the console.
-     *
-     * @param showViolations
+     * Whether the build continues when violations are found.
      */
-    public void setShowViolations(boolean showViolations) {
-        this.showViolations = showViolations;
+    @Internal
+    public Property<Boolean> getIgnoreFailuresProperty() {
+        return ignoreFailures;
     }
 
     @Input
-    public String getShellcheckVersion() {
-        return shellcheckVersion;
+    public Property<String> getSeverity() {
+        return severity;
     }
 
-    public void setShellcheckVersion(String shellcheckVersion) {
-        this.shellcheckVersion = shellcheckVersion;
+    @Internal
+    public DirectoryProperty getProjectDir() {
+        return projectDir;
     }
 
-    @Override
-    public void setIgnoreFailures(boolean ignoreFailures) {
-        this.ignoreFailures = ignoreFailures;
+    @Internal
+    public DirectoryProperty getGradleUserHomeDir() {
+        return gradleUserHomeDir;
+    }
+
+    /**
+     * The directory where the violations of every checked script are kept between incremental runs.
+     */
+    @OutputDirectory
+    public DirectoryProperty getResultsDir() {
+        return resultsDir;
     }
 
+    /**
+     * The directory where the full results of Shellcheck are kept by the content of the checked scripts, shared by the
+     * Shellcheck tasks of the project. Its entries never change once written, so it is not an output of any of them.
+     */
     @Internal
-    public boolean isIgnoreFailures() {
-        return ignoreFailures;
+    public DirectoryProperty getAnalysisCacheDir() {
+        return analysisCacheDir;
     }
 
-    @Override
-    public boolean getIgnoreFailures() {
-        return ignoreFailures;
+    /**
+     * The JSON file where the duration of every phase of the task is recorded, along with the number of files checked,
+     * shards run and bytes of output. It describes the last execution of the task on this machine, so it is not an output:
+     * a result restored from the build cache keeps the timings of the machine that produced it out of it.
+     */
+    @Internal
+    public RegularFileProperty getMetricsFile() {
+        return metricsFile;
     }
 
     @Input
-    public String getSeverity() {
-        return severity;
+    public Property<Boolean> getUseDocker() {
+        return useDocker;
     }
 
-    public void setSeverity(String severity) {
-        this.severity = severity;
+    /**
+     * Whether to send the work to a container shared by all the tasks of the build instead of starting a new one per
+     * Shellcheck invocation. Ignored if {@code useDocker} is false.
+     */
+    @Internal
+    public Property<Boolean> getReuseDockerContainer() {
+        return reuseDockerContainer;
     }
 
     @Internal
-    public File getProjectDir() {
-        return projectDir;
+    public Property<ShellcheckBuildService> getBuildService() {
+        return buildService;
     }
 
-    public void setProjectDir(File projectDir) {
-        this.projectDir = projectDir;
+    /**
+     * Where the binary is installed does not change the violations found, so it is not part of the cache key, unlike
+     * the {@link #getProbedShellcheckVersion() version} found there.
+     */
+    @Internal
+    public Property<String> getShellcheckBinary() {
+        return shellcheckBinary;
     }
 
+    @Internal
+    public Property<String> getInstaller() {
+        return installer;
+    }
+
+    /**
+     * The Shellcheck actually run: the digest of the Docker image or the version of the binary, as found by {@link ShellcheckVersionSource}.
+     */
     @Input
-    public boolean isUseDocker() {
-        return useDocker;
+    public Property<String> getProbedShellcheckVersion() {
+        return probedShellcheckVersion;
     }
 
-    public void setUseDocker(boolean useDocker) {
-        this.useDocker = useDocker;
+    /**
+     * The extensions, without the leading dot, of the files to check. Files without extension are checked when their
+     * shebang points to a shell.
+     */
+    @Input
+    public ListProperty<String> getFileExtensions() {
+        return fileExtensions;
     }
 
+    /**
+     * The only rules, such as {@code SC2086}, whose violations are reported. All of them when empty.
+     */
     @Input
-    public String getShellcheckBinary() {
-        return shellcheckBinary;
+    public ListProperty<String> getIncludeRules() {
+        return includeRules;
     }
 
-    public void setShellcheckBinary(String shellcheckBinary) {
-        this.shellcheckBinary = shellcheckBinary;
+    /**
+     * The rules, such as {@code SC2086}, whose violations are never reported.
+     */
+    @Input
+    public ListProperty<String> getExcludeRules() {
+        return excludeRules;
     }
 
+    /**
+     * The number of scripts checked by each Shellcheck process. Defaults to 0, which splits the scripts according to the
+     * number of workers.
+     */
+    @Internal
+    public Property<Integer> getShardSize() {
+        return shardSize;
+    }
+
+    @Internal
+    public Property<Integer> getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    /**
+     * Whether the build runs with {@code --continuous}, where the console only shows the violations of the scripts
+     * checked again since the previous build.
+     */
+    @Internal
+    public Property<Boolean> getContinuous() {
+        return continuous;
+    }
+
+    /**
+     * A git ref, such as {@code origin/main}. When set, only the sources changed since then, or not tracked yet, are checked.
+     */
     @Input
-    public String getInstaller() {
-        return installer;
+    public Property<String> getOnlyChangedSince() {
+        return onlyChangedSince;
+    }
+
+    /**
+     * Whether Shellcheck follows every sourced script, even those not checked, as with {@code shellcheck -x}.
+     */
+    @Input
+    public Property<Boolean> getExternalSources() {
+        return externalSources;
+    }
+
+    /**
+     * The number of violations of level error tolerated before Shellcheck is stopped, leaving the reports truncated.
+     */
+    @Input
+    public Property<Integer> getMaxErrors() {
+        return maxErrors;
     }
 
-    public void setInstaller(String installer) {
-        this.installer = installer;
+    /**
+     * The number of violations of level warning tolerated before Shellcheck is stopped, leaving the reports truncated.
+     */
+    @Input
+    public Property<Integer> getMaxWarnings() {
+        return maxWarnings;
+    }
+
+    @Internal
+    public Property<String> getShellcheckDistributionBaseUrl() {
+        return shellcheckDistributionBaseUrl;
+    }
+
+    @Internal
+    public Property<String> getShellcheckDistributionChecksum() {
+        return shellcheckDistributionChecksum;
     }
 }
@@ -0,0 +1,119 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+
+import javax.inject.Inject;
+
+/**
+ * Merges the results of every {@link Shellcheck} task of the build into a single XML, HTML and SARIF report, with the
+ * totals of every task and rule.
+ * <p>
+ * The results of each task are first turned into fragments of the reports, which are only rebuilt for the tasks whose
+ * results changed, and the reports are then written by appending the fragments one after the other.
+ */
+@CacheableTask
+public class ShellcheckAggregateReport extends DefaultTask {
+
+    private final ConfigurableFileCollection results;
+    private final Property<String> shellcheckVersion;
+    private final DirectoryProperty rootDir;
+    private final DirectoryProperty fragmentsDir;
+    private final RegularFileProperty xmlFile;
+    private final RegularFileProperty htmlFile;
+    private final RegularFileProperty sarifFile;
+    private final RegularFileProperty htmlStylesheet;
+
+    public ShellcheckAggregateReport() {
+        final ObjectFactory objects = getObjectFactory();
+        this.results = objects.fileCollection();
+        this.shellcheckVersion = objects.property(String.class);
+        this.rootDir = objects.directoryProperty();
+        this.fragmentsDir = objects.directoryProperty();
+        this.xmlFile = objects.fileProperty();
+        this.htmlFile = objects.fileProperty();
+        this.sarifFile = objects.fileProperty();
+        this.htmlStylesheet = objects.fileProperty();
+    }
+
+    @Inject
+    protected ObjectFactory getObjectFactory() {
+        throw new UnsupportedOperationException();
+    }
+
+    @TaskAction
+    public void run(InputChanges inputChanges) {
+        ShellcheckAggregator.aggregate(this, inputChanges);
+    }
+
+    /**
+     * The results directories of the aggregated tasks, each one recording the task it belongs to and its project.
+     */
+    @Incremental
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public ConfigurableFileCollection getResults() {
+        return results;
+    }
+
+    @Input
+    public Property<String> getShellcheckVersion() {
+        return shellcheckVersion;
+    }
+
+    @Internal
+    public DirectoryProperty getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * Where the report fragments of every aggregated task are kept between runs.
+     */
+    @OutputDirectory
+    public DirectoryProperty getFragmentsDir() {
+        return fragmentsDir;
+    }
+
+    @OutputFile
+    public RegularFileProperty getXmlFile() {
+        return xmlFile;
+    }
+
+    @OutputFile
+    public RegularFileProperty getHtmlFile() {
+        return htmlFile;
+    }
+
+    @OutputFile
+    public RegularFileProperty getSarifFile() {
+        return sarifFile;
+    }
+
+    /**
+     * The XSLT stylesheet turning the aggregate XML report into the HTML one, the one of the HTML report of the
+     * {@code shellcheck} task of the root project by default. The default stylesheet is used if absent.
+     */
+    @Optional
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public RegularFileProperty getHtmlStylesheet() {
+        return htmlStylesheet;
+    }
+}
@@ -0,0 +1,285 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.GradleException;
+import org.gradle.internal.logging.ConsoleRenderer;
+import org.gradle.work.FileChange;
+import org.gradle.work.InputChanges;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static com.felipefzdz.gradle.shellcheck.ShellcheckCheckstyleWriter.attribute;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Does the work of the {@link ShellcheckAggregateReport} task.
+ * <p>
+ * The results of every aggregated task are turned into an XML fragment, a SARIF fragment and a file with its totals,
+ * reading one entry of its {@link ShellcheckResultStore} at a time. The reports are then written by copying the
+ * fragments one after the other, so only the totals of every task are ever held in memory.
+ */
+public class ShellcheckAggregator {
+
+    private static final String XML_FRAGMENT = "fragment.xml";
+    private static final String SARIF_FRAGMENT = "fragment.sarif";
+    private static final String TOTALS = "totals.tsv";
+    private static final String[] LEVELS = {"error", "warning", "info", "style"};
+
+    public static void aggregate(ShellcheckAggregateReport task, InputChanges inputChanges) {
+        final File rootDir = task.getRootDir().get().getAsFile();
+        final File fragmentsDir = task.getFragmentsDir().get().getAsFile();
+        final Map<String, File> resultsDirs = new TreeMap<>();
+        final Map<String, File> projectDirs = new TreeMap<>();
+        final Map<Path, String> taskPaths = new HashMap<>();
+        try {
+            for (File resultsDir : task.getResults().getFiles()) {
+                final ShellcheckResultStore store = new ShellcheckResultStore(resultsDir);
+                final String taskPath = store.getTaskPath();
+                // Left behind by a task which never ran
+                if (taskPath != null) {
+                    resultsDirs.put(taskPath, resultsDir);
+                    projectDirs.put(taskPath, store.getProjectDir());
+                    taskPaths.put(resultsDir.toPath(), taskPath);
+                }
+            }
+            final Set<String> changed = new TreeSet<>();
+            if (inputChanges.isIncremental()) {
+                for (FileChange change : inputChanges.getFileChanges(task.getResults())) {
+                    // The results directory holding the change is found among its parents, whatever the number of tasks
+                    for (Path dir = change.getFile().toPath(); dir != null; dir = dir.getParent()) {
+                        final String taskPath = taskPaths.get(dir);
+                        if (taskPath != null) {
+                            changed.add(taskPath);
+                            break;
+                        }
+                    }
+                }
+            } else {
+                FileUtils.deleteDirectory(fragmentsDir);
+                changed.addAll(resultsDirs.keySet());
+            }
+            for (String taskPath : changed) {
+                writeFragments(resultsDirs.get(taskPath), projectDirs.get(taskPath), fragmentDir(fragmentsDir, taskPath), rootDir);
+            }
+            task.getLogger().info("Shellcheck rebuilt the report fragments of " + changed.size() + " of " + resultsDirs.size() + " tasks");
+
+            final Map<String, Totals> totals = new TreeMap<>();
+            for (String taskPath : resultsDirs.keySet()) {
+                final File totalsFile = new File(fragmentDir(fragmentsDir, taskPath), TOTALS);
+                if (totalsFile.isFile()) {
+                    totals.put(taskPath, Totals.read(totalsFile));
+                }
+            }
+            final File xmlFile = task.getXmlFile().get().getAsFile();
+            writeXml(totals, fragmentsDir, xmlFile);
+            writeSarif(totals, fragmentsDir, task.getShellcheckVersion().get(), rootDir, task.getSarifFile().get().getAsFile());
+            writeHtml(xmlFile, task.getHtmlStylesheet().getAsFile().getOrNull(), task.getHtmlFile().get().getAsFile());
+            task.getLogger().lifecycle("Shellcheck found " + totals.values().stream().mapToInt(Totals::getViolations).sum()
+                    + " violations in " + totals.values().stream().mapToInt(it -> it.files).sum()
+                    + " files across " + totals.size() + " tasks. See the report at: "
+                    + new ConsoleRenderer().asClickableFileUrl(task.getHtmlFile().get().getAsFile()));
+        } catch (IOException | TransformerException e) {
+            throw new GradleException("Error while aggregating Shellcheck reports", e);
+        }
+    }
+
+    private static File fragmentDir(File fragmentsDir, String taskPath) {
+        return new File(fragmentsDir, taskPath.substring(1).replace(':', '/'));
+    }
+
+    private static void writeFragments(File resultsDir, File projectDir, File fragmentDir, File rootDir) throws IOException {
+        Files.createDirectories(fragmentDir.toPath());
+        if (!resultsDir.isDirectory()) {
+            for (String fragment : new String[]{XML_FRAGMENT, SARIF_FRAGMENT, TOTALS}) {
+                Files.deleteIfExists(new File(fragmentDir, fragment).toPath());
+            }
+            return;
+        }
+        final ShellcheckResultStore store = new ShellcheckResultStore(resultsDir);
+        final Totals totals = new Totals(store.isComplete());
+        try (Writer xml = Files.newBufferedWriter(new File(fragmentDir, XML_FRAGMENT).toPath(), StandardCharsets.UTF_8);
+             Writer sarif = Files.newBufferedWriter(new File(fragmentDir, SARIF_FRAGMENT).toPath(), StandardCharsets.UTF_8)) {
+            store.forEachEntry(entry -> {
+                if (entry.isEmpty()) {
+                    return;
+                }
+                // Scripts are named relative to the root directory instead of the one of their project
+                final File script = new File(entry.get(0).getFile()).isAbsolute() ? new File(entry.get(0).getFile()) : new File(projectDir, entry.get(0).getFile());
+                final String file = ShellcheckInvoker.relativePath(rootDir, script);
+                final List<ShellcheckViolation> violations = entry.stream().map(violation -> violation.withFile(file)).collect(toList());
+                ShellcheckCheckstyleWriter.writeFile(file, violations, xml);
+                for (ShellcheckViolation violation : violations) {
+                    if (totals.getViolations() > 0) {
+                        sarif.write(',');
+                    }
+                    // The indexes of the rules are only known once every task is aggregated
+                    ShellcheckSarifWriter.writeResult(violation, null, rootDir, sarif);
+                    totals.add(violation);
+                }
+                totals.files++;
+            });
+        }
+        totals.write(new File(fragmentDir, TOTALS));
+    }
+
+    private static void writeXml(Map<String, Totals> totals, File fragmentsDir, File destination) throws IOException {
+        Files.createDirectories(destination.getParentFile().toPath());
+        try (Writer writer = Files.newBufferedWriter(destination.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("<?xml version='1.0' encoding='UTF-8'?>\n");
+            writer.write("<checkstyle version='4.3'>\n");
+            for (String taskPath : totals.keySet()) {
+                copy(new File(fragmentDir(fragmentsDir, taskPath), XML_FRAGMENT), writer);
+            }
+            for (Map.Entry<String, Totals> task : totals.entrySet()) {
+                final Totals it = task.getValue();
+                writer.write("<project " + attribute("path", task.getKey())
+                        + attribute("files", String.valueOf(it.files))
+                        + attribute("violations", String.valueOf(it.getViolations())));
+                for (String level : LEVELS) {
+                    writer.write(attribute(level, String.valueOf(it.levels.getOrDefault(level, 0))));
+                }
+                writer.write(attribute("complete", String.valueOf(it.complete)) + "/>\n");
+            }
+            for (RuleTotals rule : mergeRules(totals).values()) {
+                writer.write("<rule " + attribute("id", rule.sample.getRule())
+                        + attribute("level", rule.sample.getLevel())
+                        + attribute("violations", String.valueOf(rule.violations))
+                        + attribute("message", rule.sample.getMessage()) + "/>\n");
+            }
+            writer.write("</checkstyle>\n");
+        }
+    }
+
+    private static void writeSarif(Map<String, Totals> totals, File fragmentsDir, String shellcheckVersion, File rootDir, File destination) throws IOException {
+        final List<ShellcheckViolation> rules = new ArrayList<>();
+        mergeRules(totals).values().forEach(rule -> rules.add(rule.sample));
+        Files.createDirectories(destination.getParentFile().toPath());
+        try (Writer writer = Files.newBufferedWriter(destination.toPath(), StandardCharsets.UTF_8)) {
+            ShellcheckSarifWriter.writeStart(shellcheckVersion, rules, writer);
+            boolean first = true;
+            for (Map.Entry<String, Totals> task : totals.entrySet()) {
+                if (task.getValue().getViolations() == 0) {
+                    continue;
+                }
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                copy(new File(fragmentDir(fragmentsDir, task.getKey()), SARIF_FRAGMENT), writer);
+            }
+            ShellcheckSarifWriter.writeEnd(null, writer);
+        }
+    }
+
+    private static void writeHtml(File xmlFile, File stylesheetFile, File destination) throws IOException, TransformerException {
+        final byte[] stylesheet;
+        if (stylesheetFile != null) {
+            stylesheet = Files.readAllBytes(stylesheetFile.toPath());
+        } else {
+            try (InputStream input = ShellcheckAggregator.class.getClassLoader().getResourceAsStream(ShellcheckInvoker.SHELLCHECK_NOFRAMES_SORTED_XSL)) {
+                stylesheet = IOUtils.toByteArray(input);
+            }
+        }
+        Files.createDirectories(destination.getParentFile().toPath());
+        ShellcheckStylesheets.compile(stylesheet).newTransformer().transform(new StreamSource(xmlFile), new StreamResult(destination));
+    }
+
+    private static Map<String, RuleTotals> mergeRules(Map<String, Totals> totals) {
+        final Map<String, RuleTotals> rules = new TreeMap<>();
+        totals.values().forEach(it -> it.rules.forEach((rule, ruleTotals) ->
+                rules.computeIfAbsent(rule, ignored -> new RuleTotals(ruleTotals.sample)).violations += ruleTotals.violations));
+        return rules;
+    }
+
+    private static void copy(File fragment, Writer writer) throws IOException {
+        try (Reader reader = Files.newBufferedReader(fragment.toPath(), StandardCharsets.UTF_8)) {
+            IOUtils.copy(reader, writer);
+        }
+    }
+
+    private static class RuleTotals {
+        private final ShellcheckViolation sample;
+        private int violations;
+
+        private RuleTotals(ShellcheckViolation sample) {
+            this.sample = sample;
+        }
+    }
+
+    /**
+     * The totals of an aggregated task, kept next to its fragments as one tab separated line per value.
+     */
+    private static class Totals {
+        private final boolean complete;
+        private final Map<String, Integer> levels = new TreeMap<>();
+        private final Map<String, RuleTotals> rules = new TreeMap<>();
+        private int files;
+
+        private Totals(boolean complete) {
+            this.complete = complete;
+        }
+
+        private void add(ShellcheckViolation violation) {
+            levels.merge(violation.getLevel(), 1, Integer::sum);
+            rules.computeIfAbsent(violation.getRule(), ignored -> new RuleTotals(violation)).violations++;
+        }
+
+        private int getViolations() {
+            return levels.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        private void write(File destination) throws IOException {
+            final StringBuilder content = new StringBuilder()
+                    .append("complete\t").append(complete).append('\n')
+                    .append("files\t").append(files).append('\n');
+            levels.forEach((level, violations) -> content.append("level\t").append(level).append('\t').append(violations).append('\n'));
+            rules.values().forEach(rule -> content.append("rule\t").append(rule.sample.getCode())
+                    .append('\t').append(rule.sample.getLevel())
+                    .append('\t').append(rule.violations)
+                    .append('\t').append(rule.sample.getMessage().replaceAll("\\s", " "))
+                    .append('\n'));
+            Files.write(destination.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Totals read(File source) throws IOException {
+            final List<String> lines = Files.readAllLines(source.toPath(), StandardCharsets.UTF_8);
+            final Totals totals = new Totals(Boolean.parseBoolean(lines.get(0).split("\t")[1]));
+            for (String line : lines.subList(1, lines.size())) {
+                final String[] values = line.split("\t", 5);
+                switch (values[0]) {
+                    case "files":
+                        totals.files = Integer.parseInt(values[1]);
+                        break;
+                    case "level":
+                        totals.levels.put(values[1], Integer.parseInt(values[2]));
+                        break;
+                    case "rule":
+                        final ShellcheckViolation sample = new ShellcheckViolation("", 0, 0, 0, 0, values[2], Integer.parseInt(values[1]), values[4]);
+                        totals.rules.computeIfAbsent(sample.getRule(), ignored -> new RuleTotals(sample)).violations = Integer.parseInt(values[3]);
+                        break;
+                    default:
+                        throw new IOException("Unexpected line in " + source + ": " + line);
+                }
+            }
+            return totals;
+        }
+    }
+}
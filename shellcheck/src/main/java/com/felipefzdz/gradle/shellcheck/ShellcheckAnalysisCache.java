@@ -0,0 +1,157 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full results of Shellcheck, at the {@code style} level and before any {@link ShellcheckViolationFilter}, of every
+ * script it checked, so a script is never checked twice in the same state, even by another task or after its results
+ * were cleared because the filters changed.
+ * <p>
+ * An analysis is found by the Shellcheck run, the path and content of the script, the content of every script it
+ * sources and of the closest {@code .shellcheckrc}. Entries are never modified once written, so the tasks of a project
+ * share the same directory, and those unused for a week are removed at most once a day.
+ */
+public class ShellcheckAnalysisCache {
+
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String LAST_CLEANUP = "last-cleanup";
+    private static final long MAX_UNUSED_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final long CLEANUP_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final String[] RC_FILES = {".shellcheckrc", "shellcheckrc"};
+
+    private final File directory;
+    private final String analysisKey;
+    private final File projectDir;
+    private final ShellcheckSourceIndex index;
+    private final Map<File, String> contentHashes = new HashMap<>();
+    private final Map<File, String> rcHashes = new HashMap<>();
+    private final Map<String, String> keys = new HashMap<>();
+
+    /**
+     * @param analysisKey Whatever changes the results of Shellcheck besides the scripts, such as its version and options
+     */
+    public ShellcheckAnalysisCache(File directory, String analysisKey, File projectDir, ShellcheckSourceIndex index) {
+        this.directory = directory;
+        this.analysisKey = analysisKey;
+        this.projectDir = projectDir;
+        this.index = index;
+    }
+
+    /**
+     * The violations found the last time the script was checked in its current state, if any.
+     */
+    public Optional<List<ShellcheckViolation>> get(File script) throws IOException {
+        final File entry = entryOf(script);
+        if (!entry.isFile()) {
+            return Optional.empty();
+        }
+        final List<ShellcheckViolation> violations = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(entry.toPath(), StandardCharsets.UTF_8)) {
+            ShellcheckJsonParser.parse(reader, violations::add);
+        } catch (IOException e) {
+            // Cut short by a build killed while writing it, it is written again once checked
+            return Optional.empty();
+        }
+        entry.setLastModified(System.currentTimeMillis());
+        return Optional.of(violations);
+    }
+
+    /**
+     * Records the violations of a script, in the state it was in when {@link #get(File)} was called.
+     */
+    public void put(File script, List<ShellcheckViolation> violations) throws IOException {
+        final File entry = entryOf(script);
+        Files.createDirectories(directory.toPath());
+        // Written aside first, so a task sharing the directory never reads a partial entry
+        final File written = new File(directory, UUID.randomUUID() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(written.toPath(), StandardCharsets.UTF_8)) {
+            ShellcheckJsonWriter.write(violations, writer);
+        }
+        Files.move(written.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes the entries unused for a week, unless that was already done in the last day.
+     */
+    public void cleanup() throws IOException {
+        final File lastCleanup = new File(directory, LAST_CLEANUP);
+        final long now = System.currentTimeMillis();
+        if (!directory.isDirectory() || (lastCleanup.isFile() && now - lastCleanup.lastModified() < CLEANUP_INTERVAL_MILLIS)) {
+            return;
+        }
+        final File[] entries = directory.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX) || name.endsWith(".tmp"));
+        if (entries != null) {
+            for (File entry : entries) {
+                if (now - entry.lastModified() > MAX_UNUSED_MILLIS) {
+                    Files.deleteIfExists(entry.toPath());
+                }
+            }
+        }
+        Files.write(lastCleanup.toPath(), new byte[0]);
+    }
+
+    private File entryOf(File script) throws IOException {
+        final String path = ShellcheckInvoker.relativePath(projectDir, script);
+        String key = keys.get(path);
+        if (key == null) {
+            final StringBuilder state = new StringBuilder(analysisKey).append('\n')
+                    .append(path).append('\t').append(contentHash(script)).append('\n')
+                    .append(rcHash(script.getAbsoluteFile().getParentFile())).append('\n');
+            for (String sourced : index.sourcesOf(path)) {
+                final File file = new File(sourced).isAbsolute() ? new File(sourced) : new File(projectDir, sourced);
+                state.append(sourced).append('\t').append(contentHash(file)).append('\n');
+            }
+            key = Hashes.sha256Hex(state.toString());
+            keys.put(path, key);
+        }
+        return new File(directory, key + ENTRY_SUFFIX);
+    }
+
+    private String contentHash(File file) throws IOException {
+        final File absolute = file.getAbsoluteFile();
+        String hash = contentHashes.get(absolute);
+        if (hash == null) {
+            hash = absolute.isFile() ? Hashes.sha256Hex(Files.readAllBytes(absolute.toPath())) : "-";
+            contentHashes.put(absolute, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * The content of the configuration Shellcheck reads for the scripts of a directory: the first one found in the
+     * directory or any of its parents.
+     */
+    private String rcHash(File dir) throws IOException {
+        if (dir == null) {
+            return "-";
+        }
+        String hash = rcHashes.get(dir);
+        if (hash == null) {
+            for (String name : RC_FILES) {
+                final File rc = new File(dir, name);
+                if (rc.isFile()) {
+                    hash = contentHash(rc);
+                    break;
+                }
+            }
+            if (hash == null) {
+                hash = rcHash(dir.getParentFile());
+            }
+            rcHashes.put(dir, hash);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,225 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import static com.felipefzdz.gradle.shellcheck.Shell.run;
+
+/**
+ * State shared by every {@link Shellcheck} task of a build.
+ * <p>
+ * It caps the number of Shellcheck processes running at once across all the projects of the build, handing out
+ * permits in the order they were requested so no task starves the others.
+ * <p>
+ * It also keeps one long-lived Shellcheck container per image and set of mounts, so tasks send their work to it with
+ * {@code docker exec} instead of paying the startup of a new container. The containers are removed when the build finishes.
+ * They are labelled with the Gradle daemon that started them, so the containers left behind by a daemon that died before
+ * removing them are removed by the next build starting one.
+ */
+public abstract class ShellcheckBuildService implements BuildService<ShellcheckBuildService.Parameters>, AutoCloseable {
+
+    private static final Logger LOGGER = Logging.getLogger(ShellcheckBuildService.class);
+    private static final String OWNER_LABEL = "com.felipefzdz.gradle.shellcheck.owner";
+    // The pid and host of this daemon, such as 1234@host
+    private static final String OWNER = ManagementFactory.getRuntimeMXBean().getName();
+
+    public interface Parameters extends BuildServiceParameters {
+        /**
+         * The root directory of the build, mounted in every container so most tasks can share the same one.
+         */
+        DirectoryProperty getRootDir();
+
+        /**
+         * The maximum number of Shellcheck processes running at once in the build.
+         */
+        Property<Integer> getMaxConcurrentProcesses();
+    }
+
+    private final Map<String, String> containers = new ConcurrentHashMap<>();
+    private final Map<String, ShellcheckViolationLimit> violationLimits = new ConcurrentHashMap<>();
+    private final Map<File, ShardResult> shardResults = new ConcurrentHashMap<>();
+    private Semaphore processPermits;
+    private boolean staleContainersRemoved;
+
+    /**
+     * Runs some work spawning a Shellcheck process once a permit is available.
+     */
+    public <T> T withProcessPermit(ProcessWork<T> work) throws IOException, InterruptedException {
+        final Semaphore permits = processPermits();
+        if (!permits.tryAcquire()) {
+            LOGGER.debug("Waiting for one of the " + getParameters().getMaxConcurrentProcesses().get() + " Shellcheck process permits");
+            permits.acquire();
+        }
+        try {
+            return work.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private synchronized Semaphore processPermits() {
+        if (processPermits == null) {
+            processPermits = new Semaphore(Math.max(1, getParameters().getMaxConcurrentProcesses().get()), true);
+        }
+        return processPermits;
+    }
+
+    public interface ProcessWork<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Starts counting the violations of a run of the given task, shared with the work actions running its shards.
+     */
+    public ShellcheckViolationLimit startViolationLimit(String taskPath, int maxErrors, int maxWarnings, ShellcheckViolationFilter filter) {
+        final ShellcheckViolationLimit limit = new ShellcheckViolationLimit(maxErrors, maxWarnings, filter);
+        violationLimits.put(taskPath, limit);
+        return limit;
+    }
+
+    public ShellcheckViolationLimit violationLimit(String taskPath) {
+        return violationLimits.computeIfAbsent(taskPath, ignored -> new ShellcheckViolationLimit(Integer.MAX_VALUE, Integer.MAX_VALUE,
+                new ShellcheckViolationFilter("style", Collections.emptyList(), Collections.emptyList())));
+    }
+
+    public void finishViolationLimit(String taskPath) {
+        violationLimits.remove(taskPath);
+    }
+
+    /**
+     * Hands the violations parsed while a shard was checked over to the task, keyed by the output file of the shard.
+     */
+    public void putShardResult(File output, List<ShellcheckViolation> violations, boolean complete) {
+        shardResults.put(output.getAbsoluteFile(), new ShardResult(violations, complete));
+    }
+
+    /**
+     * The violations of a shard, or empty if it was never checked.
+     */
+    public Optional<ShardResult> takeShardResult(File output) {
+        return Optional.ofNullable(shardResults.remove(output.getAbsoluteFile()));
+    }
+
+    public static class ShardResult {
+        private final List<ShellcheckViolation> violations;
+        private final boolean complete;
+
+        private ShardResult(List<ShellcheckViolation> violations, boolean complete) {
+            this.violations = violations;
+            this.complete = complete;
+        }
+
+        public List<ShellcheckViolation> getViolations() {
+            return violations;
+        }
+
+        /**
+         * Whether the whole output was parsed, rather than the output of a process killed once the violation limit was reached.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    /**
+     * The id of a running container of the given image where all the sources are reachable on the same path as on the host.
+     */
+    public String dockerContainer(String image, Set<File> sources) {
+        final Set<String> mounts = mounts(sources);
+        final String key = image + mounts;
+        removeStaleContainers();
+        return containers.computeIfAbsent(key, ignored -> startContainer(image, mounts));
+    }
+
+    private Set<String> mounts(Set<File> sources) {
+        final File rootDir = getParameters().getRootDir().get().getAsFile();
+        final Set<File> roots = new HashSet<>(sources);
+        roots.add(rootDir);
+        return ShellcheckDockerMounts.plan(roots, rootDir);
+    }
+
+    /**
+     * Removes the containers started by the daemons of this host which are no longer running, once per build.
+     */
+    private synchronized void removeStaleContainers() {
+        if (staleContainersRemoved) {
+            return;
+        }
+        staleContainersRemoved = true;
+        try {
+            final String output = run(Arrays.asList("docker", "ps", "-a", "--filter", "label=" + OWNER_LABEL,
+                    "--format", "{{.ID}} {{.Label \"" + OWNER_LABEL + "\"}}"), null, LOGGER);
+            for (String line : output.split("\\R")) {
+                final String[] container = line.trim().split(" ");
+                if (container.length == 2 && container[0].matches("[0-9a-zA-Z]+") && isStale(container[1])) {
+                    run(Arrays.asList("docker", "rm", "-f", container[0]), null, LOGGER);
+                    LOGGER.info("Removed Shellcheck container " + container[0] + " left behind by " + container[1]);
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            LOGGER.warn("Unable to remove the Shellcheck containers left behind by other builds", e);
+        }
+    }
+
+    private static boolean isStale(String owner) throws IOException, InterruptedException {
+        final int separator = owner.indexOf('@');
+        final String pid = owner.substring(0, Math.max(0, separator));
+        // Another host may share the same Docker daemon, its processes cannot be seen from here
+        if (!pid.matches("\\d+") || !owner.substring(separator).equals(OWNER.substring(OWNER.indexOf('@')))) {
+            return false;
+        }
+        return Shell.exec(Arrays.asList("ps", "-p", pid), null, LOGGER, NullOutputStream.NULL_OUTPUT_STREAM).getExitCode() != 0;
+    }
+
+    private static String startContainer(String image, Set<String> mounts) {
+        final List<String> command = new ArrayList<>(Arrays.asList("docker", "run", "-d", "--rm", "--label", OWNER_LABEL + "=" + OWNER));
+        command.addAll(ShellcheckDockerMounts.arguments(mounts));
+        command.addAll(Arrays.asList(image, "tail", "-f", "/dev/null"));
+        LOGGER.debug("Command to start the Shellcheck container: " + String.join(" ", command));
+        try {
+            final String output = run(command, null, LOGGER);
+            final String[] lines = output.split("\\R");
+            final String containerId = lines[lines.length - 1].trim();
+            if (containerId.isEmpty() || !containerId.matches("[0-9a-zA-Z]+")) {
+                throw new GradleException(String.format("Error while starting the Shellcheck container: %s", output));
+            }
+            LOGGER.info("Started Shellcheck container " + containerId + " from " + image);
+            return containerId;
+        } catch (IOException | InterruptedException e) {
+            throw new GradleException("Error while starting the Shellcheck container", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        containers.values().forEach(containerId -> {
+            try {
+                run(Arrays.asList("docker", "rm", "-f", containerId), null, LOGGER);
+                LOGGER.info("Removed Shellcheck container " + containerId);
+            } catch (IOException | InterruptedException e) {
+                LOGGER.warn("Unable to remove Shellcheck container " + containerId, e);
+            }
+        });
+        containers.clear();
+    }
+}
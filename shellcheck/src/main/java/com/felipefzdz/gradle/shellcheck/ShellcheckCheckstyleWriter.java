@@ -0,0 +1,53 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link ShellcheckResult} in the same checkstyle format produced by {@code shellcheck -f checkstyle}.
+ */
+public class ShellcheckCheckstyleWriter {
+
+    public static void write(ShellcheckResult result, Writer writer) throws IOException {
+        writer.write("<?xml version='1.0' encoding='UTF-8'?>\n");
+        writer.write(result.isTruncated() ?
+                "<checkstyle version='4.3' " + attribute("truncated", result.getTruncation()).trim() + ">\n" :
+                "<checkstyle version='4.3'>\n");
+        for (Map.Entry<String, List<ShellcheckViolation>> file : result.getViolationsByFile().entrySet()) {
+            writeFile(file.getKey(), file.getValue(), writer);
+        }
+        writer.write("</checkstyle>\n");
+    }
+
+    static void writeFile(String name, List<ShellcheckViolation> violations, Writer writer) throws IOException {
+        writer.write("<file " + attribute("name", name) + ">\n");
+        for (ShellcheckViolation violation : violations) {
+            writer.write("<error "
+                    + attribute("line", String.valueOf(violation.getLine()))
+                    + attribute("column", String.valueOf(violation.getColumn()))
+                    + attribute("severity", violation.getCheckstyleSeverity())
+                    + attribute("message", violation.getMessage())
+                    + attribute("source", "ShellCheck." + violation.getRule())
+                    + "/>\n");
+        }
+        writer.write("</file>\n");
+    }
+
+    static String attribute(String name, String value) {
+        return name + "='" + escape(value) + "' ";
+    }
+
+    private static String escape(String value) {
+        final StringBuilder escaped = new StringBuilder(value.length());
+        value.codePoints().forEach(c -> {
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == ' ' || c == '.' || c == '/') {
+                escaped.append((char) c);
+            } else {
+                escaped.append("&#").append(c).append(';');
+            }
+        });
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,158 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provisions the official Shellcheck release for the current platform into a versioned cache under the Gradle user home.
+ * <p>
+ * The archive is downloaded and unpacked at most once per version and platform. Concurrent builds are serialized by a
+ * file lock, and once a distribution is complete later builds reuse it without any network access.
+ * <p>
+ * The archive must match the configured SHA-256, since the binary it holds is run by the build. The URL and the SHA-256
+ * it was verified against are recorded with the distribution, which is only reused while they are still the configured ones.
+ */
+public class ShellcheckDistribution {
+
+    public static final String DEFAULT_BASE_URL = "https://github.com/koalaman/shellcheck/releases/download";
+
+    private static final String COMPLETE_MARKER = ".complete";
+    private static final int TIMEOUT_MILLIS = 30_000;
+    private static final Map<String, File> PROVISIONED = new ConcurrentHashMap<>();
+
+    public static File provision(String baseUrl, String version, String checksum, File gradleUserHomeDir, Logger logger) {
+        final String platform = platform();
+        final File distributionDir = new File(gradleUserHomeDir, "caches/shellcheck/distributions/" + version + "/" + platform);
+        final String url = baseUrl + "/" + version + "/shellcheck-" + version + "." + platform + ".tar.xz";
+        // What the binary was verified against, so configuring another archive verifies it again
+        final String verification = url + "\n" + checksum.toLowerCase(Locale.ROOT);
+        final String key = distributionDir.getAbsolutePath() + "\n" + verification;
+        final File cached = PROVISIONED.get(key);
+        if (cached != null && cached.isFile()) {
+            return cached;
+        }
+        final File binary = new File(distributionDir, "shellcheck");
+        try {
+            if (!isProvisioned(distributionDir, binary, verification)) {
+                provision(url, checksum, verification, distributionDir, binary, logger);
+            }
+        } catch (IOException e) {
+            throw new GradleException("Error while provisioning Shellcheck " + version, e);
+        }
+        PROVISIONED.put(key, binary);
+        return binary;
+    }
+
+    private static boolean isProvisioned(File distributionDir, File binary, String verification) throws IOException {
+        final File completeMarker = new File(distributionDir, COMPLETE_MARKER);
+        return completeMarker.isFile() && binary.isFile()
+                && verification.equals(FileUtils.readFileToString(completeMarker, StandardCharsets.UTF_8));
+    }
+
+    private static void provision(String url, String checksum, String verification, File distributionDir, File binary, Logger logger) throws IOException {
+        Files.createDirectories(distributionDir.toPath());
+        // The file lock guards against other builds, the monitor against other threads of this JVM
+        synchronized (ShellcheckDistribution.class) {
+            try (RandomAccessFile lockFile = new RandomAccessFile(new File(distributionDir.getParentFile(), distributionDir.getName() + ".lock"), "rw");
+                 FileChannel channel = lockFile.getChannel();
+                 FileLock ignored = channel.lock()) {
+                if (isProvisioned(distributionDir, binary, verification)) {
+                    return;
+                }
+                final File completeMarker = new File(distributionDir, COMPLETE_MARKER);
+                // The binary of another archive is no longer trusted
+                Files.deleteIfExists(completeMarker.toPath());
+                final File archive = new File(distributionDir, "shellcheck.tar.xz.part");
+                logger.lifecycle("Downloading Shellcheck from " + url);
+                final String actualChecksum = download(url, archive);
+                // A binary is never run unless it is verified
+                if (checksum.isEmpty()) {
+                    Files.deleteIfExists(archive.toPath());
+                    throw new GradleException("No checksum configured for " + url + ". Its SHA-256 is " + actualChecksum
+                            + ", set shellcheckDistributionChecksum to it once verified against the release.");
+                } else if (!checksum.equalsIgnoreCase(actualChecksum)) {
+                    Files.deleteIfExists(archive.toPath());
+                    throw new GradleException("Checksum mismatch for " + url + ": expected " + checksum + " but was " + actualChecksum);
+                }
+                unpack(archive, binary);
+                Files.deleteIfExists(archive.toPath());
+                FileUtils.writeStringToFile(completeMarker, verification, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static String download(String url, File destination) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setInstanceFollowRedirects(true);
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new GradleException("Unable to download Shellcheck from " + url + ": HTTP " + connection.getResponseCode());
+            }
+            final MessageDigest digest = Hashes.sha256();
+            try (InputStream input = new DigestInputStream(connection.getInputStream(), digest);
+                 OutputStream output = Files.newOutputStream(destination.toPath())) {
+                IOUtils.copy(input, output);
+            }
+            return Hashes.hex(digest.digest());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void unpack(File archive, File binary) throws IOException {
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new XZCompressorInputStream(new BufferedInputStream(Files.newInputStream(archive.toPath()))))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                if (entry.isFile() && (entry.getName().equals("shellcheck") || entry.getName().endsWith("/shellcheck"))) {
+                    final File unpacked = new File(binary.getParentFile(), binary.getName() + ".part");
+                    Files.copy(tar, unpacked.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    if (!unpacked.setExecutable(true)) {
+                        throw new IOException("Unable to make " + unpacked + " executable");
+                    }
+                    Files.move(unpacked.toPath(), binary.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return;
+                }
+            }
+        }
+        throw new GradleException("No shellcheck binary found in " + archive);
+    }
+
+    private static String platform() {
+        final String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        final String arch = System.getProperty("os.arch").toLowerCase(Locale.ROOT);
+        final String osName = os.contains("mac") ? "darwin" : os.contains("linux") ? "linux" : null;
+        final String archName = arch.equals("amd64") || arch.equals("x86_64") ? "x86_64" :
+                arch.equals("aarch64") || arch.equals("arm64") ? "aarch64" :
+                        arch.startsWith("arm") ? "armv6hf" : null;
+        if (osName == null || archName == null) {
+            throw new GradleException("Shellcheck distributions are not available for " + os + " " + arch);
+        }
+        return osName + "." + archName;
+    }
+}
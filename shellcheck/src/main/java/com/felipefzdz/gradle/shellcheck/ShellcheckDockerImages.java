@@ -0,0 +1,121 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.felipefzdz.gradle.shellcheck.Shell.exec;
+
+/**
+ * Pulls the Shellcheck images in the background, as soon as the tasks using them are scheduled, so a cold agent does not
+ * wait for the pull when the first task runs.
+ * <p>
+ * An image is pulled only if it is missing, and verified by looking up its digest. Both are done once per Gradle daemon,
+ * unless Docker could not be reached. The cache key of the tasks only looks up the digest of an image already there, so
+ * fingerprinting the inputs never waits for a pull.
+ */
+public class ShellcheckDockerImages {
+
+    private static final Logger LOGGER = Logging.getLogger(ShellcheckDockerImages.class);
+    private static final Map<String, CompletableFuture<Optional<String>>> DIGESTS = new ConcurrentHashMap<>();
+    private static final ExecutorService WARM_UP = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "shellcheck-image-warm-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static String image(String shellcheckVersion) {
+        return "koalaman/shellcheck-alpine:" + shellcheckVersion;
+    }
+
+    /**
+     * Starts pulling the image unless it was already done, or is being done.
+     */
+    public static CompletableFuture<Optional<String>> warmUp(String image) {
+        final CompletableFuture<Optional<String>> digest = DIGESTS.computeIfAbsent(image,
+                ignored -> CompletableFuture.supplyAsync(() -> pull(image), WARM_UP));
+        // Tried again by the next task when Docker was not reachable
+        digest.thenAccept(found -> {
+            if (!found.isPresent()) {
+                DIGESTS.remove(image, digest);
+            }
+        });
+        return digest;
+    }
+
+    /**
+     * The digest of the image, pulled first if needed, or nothing if Docker could not find it.
+     */
+    public static Optional<String> digest(String image) {
+        return warmUp(image).join();
+    }
+
+    /**
+     * The digest of the image if it is already there, without pulling it, or nothing.
+     */
+    public static Optional<String> localDigest(String image) {
+        final CompletableFuture<Optional<String>> pulled = DIGESTS.get(image);
+        if (pulled != null && pulled.isDone() && !pulled.isCompletedExceptionally() && pulled.join().isPresent()) {
+            return pulled.join();
+        }
+        try {
+            return inspect(image);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to inspect " + image, e);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<String> pull(String image) {
+        try {
+            final Optional<String> digest = inspect(image);
+            if (digest.isPresent()) {
+                return digest;
+            }
+            LOGGER.info("Pulling " + image);
+            final long start = System.nanoTime();
+            docker("pull", "-q", image);
+            final Optional<String> pulled = inspect(image);
+            LOGGER.info((pulled.isPresent() ? "Pulled " : "Unable to pull ") + image + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+            return pulled;
+        } catch (IOException e) {
+            LOGGER.info("Unable to pull " + image, e);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<String> inspect(String image) throws IOException, InterruptedException {
+        return docker("image", "inspect", "--format", "{{.Id}}", image).filter(digest -> !digest.isEmpty());
+    }
+
+    private static Optional<String> docker(String... arguments) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add("docker");
+        command.addAll(Arrays.asList(arguments));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final Shell.ExecResult result = exec(command, null, LOGGER, output);
+        if (result.getExitCode() != 0) {
+            LOGGER.debug(String.join(" ", command) + " failed: " + result.getErrorOutput());
+            return Optional.empty();
+        }
+        return Optional.of(new String(output.toByteArray(), StandardCharsets.UTF_8).trim());
+    }
+}
@@ -0,0 +1,79 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.stream.Collectors.toCollection;
+
+/**
+ * Plans the directories mounted in the Shellcheck containers, so the sources are reachable on the same path as on the host.
+ * <p>
+ * Rather than one mount per source, directories nested in another one are dropped, and directories of the build sharing
+ * an ancestor in the build are replaced by it. Directories outside the build are mounted as they are, so nothing above
+ * the build, such as the home directory, is ever mounted as a whole. Shellcheck only reads the scripts, so every mount is
+ * read-only.
+ */
+public class ShellcheckDockerMounts {
+
+    /**
+     * The directories to mount so every given file or directory is reachable.
+     *
+     * @param rootDir The root directory of the build, the highest directory mounted instead of its descendants
+     */
+    public static Set<String> plan(Collection<File> roots, File rootDir) {
+        final Path boundary = rootDir.getAbsoluteFile().toPath().normalize();
+        final List<Path> planned = new ArrayList<>();
+        roots.stream()
+                .map(root -> root.isFile() ? root.getAbsoluteFile().getParentFile() : root.getAbsoluteFile())
+                .map(root -> root.toPath().normalize())
+                .sorted()
+                .forEach(root -> add(planned, root, boundary));
+        return planned.stream().map(Path::toString).collect(toCollection(TreeSet::new));
+    }
+
+    /**
+     * The arguments of {@code docker run} mounting the given directories.
+     */
+    public static List<String> arguments(Set<String> mounts) {
+        final List<String> arguments = new ArrayList<>();
+        mounts.forEach(mount -> {
+            arguments.add("-v");
+            arguments.add(mount + ":" + mount + ":ro");
+        });
+        return arguments;
+    }
+
+    private static void add(List<Path> planned, Path root, Path boundary) {
+        for (int i = 0; i < planned.size(); i++) {
+            final Path mount = planned.get(i);
+            if (root.startsWith(mount)) {
+                return;
+            }
+            final Path ancestor = commonAncestor(mount, root);
+            if (ancestor != null && ancestor.startsWith(boundary)) {
+                planned.remove(i);
+                // The ancestor may now share a deeper ancestor with, or contain, any other mount
+                planned.removeIf(other -> other.startsWith(ancestor));
+                add(planned, ancestor, boundary);
+                return;
+            }
+        }
+        planned.add(root);
+    }
+
+    private static Path commonAncestor(Path first, Path second) {
+        if (first.getRoot() == null || !first.getRoot().equals(second.getRoot())) {
+            return null;
+        }
+        Path ancestor = first;
+        while (ancestor != null && !second.startsWith(ancestor)) {
+            ancestor = ancestor.getParent();
+        }
+        return ancestor;
+    }
+}
@@ -1,24 +1,31 @@
 package com.felipefzdz.gradle.shellcheck;
 
-import org.gradle.api.Project;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.quality.CodeQualityExtension;
 
-public class ShellcheckExtension extends CodeQualityExtension {
+import java.util.ArrayList;
+import java.util.List;
 
-    private final Project project;
+public class ShellcheckExtension extends CodeQualityExtension {
 
     private FileCollection sources;
     private boolean showViolations = true;
     private String shellcheckVersion = "v0.7.1";
     private String severity = "style";
     private boolean useDocker = true;
+    private boolean reuseDockerContainer = true;
     private String shellcheckBinary = "/usr/local/bin/shellcheck";
     private String installer = "";
-
-    public ShellcheckExtension(Project project) {
-        this.project = project;
-    }
+    private String shellcheckDistributionBaseUrl = ShellcheckDistribution.DEFAULT_BASE_URL;
+    private String shellcheckDistributionChecksum = "";
+    private int shardSize = 0;
+    private int maxErrors = Integer.MAX_VALUE;
+    private int maxWarnings = Integer.MAX_VALUE;
+    private String onlyChangedSince = "";
+    private boolean externalSources = false;
+    private List<String> fileExtensions = new ArrayList<>(ShellcheckSourceFinder.DEFAULT_EXTENSIONS);
+    private List<String> includeRules = new ArrayList<>();
+    private List<String> excludeRules = new ArrayList<>();
 
     public FileCollection getSources() {
         return sources;
@@ -74,6 +81,20 @@ public class ShellcheckExtension extends CodeQualityExtension {
         return useDocker;
     }
 
+    /**
+     * Whether Docker mode sends the work to a container shared by all the tasks of the build instead of starting a new
+     * one per Shellcheck invocation. Defaults to true.
+     * <p>
+     * Example: reuseDockerContainer = false
+     */
+    public boolean isReuseDockerContainer() {
+        return reuseDockerContainer;
+    }
+
+    public void setReuseDockerContainer(boolean reuseDockerContainer) {
+        this.reuseDockerContainer = reuseDockerContainer;
+    }
+
     public String getShellcheckBinary() {
         return shellcheckBinary;
     }
@@ -89,4 +110,136 @@ public class ShellcheckExtension extends CodeQualityExtension {
     public void setInstaller(String installer) {
         this.installer = installer;
     }
+
+    /**
+     * The extensions, without the leading dot, of the files to check. Defaults to sh, bash, ksh, bashrc, bash_profile,
+     * bash_login and bash_logout.
+     * <p>
+     * Example: fileExtensions = listOf("sh", "zsh")
+     */
+    public List<String> getFileExtensions() {
+        return fileExtensions;
+    }
+
+    public void setFileExtensions(List<String> fileExtensions) {
+        this.fileExtensions = fileExtensions;
+    }
+
+    /**
+     * The only rules whose violations are reported. By default, all of them.
+     * <p>
+     * Example: includeRules = listOf("SC2086", "SC2046")
+     */
+    public List<String> getIncludeRules() {
+        return includeRules;
+    }
+
+    public void setIncludeRules(List<String> includeRules) {
+        this.includeRules = includeRules;
+    }
+
+    /**
+     * The rules whose violations are never reported. By default, none.
+     * <p>
+     * Example: excludeRules = listOf("SC1091")
+     */
+    public List<String> getExcludeRules() {
+        return excludeRules;
+    }
+
+    public void setExcludeRules(List<String> excludeRules) {
+        this.excludeRules = excludeRules;
+    }
+
+    /**
+     * The number of scripts checked by each Shellcheck process. Defaults to 0, which splits the scripts according to
+     * the number of workers.
+     * <p>
+     * Example: shardSize = 200
+     */
+    public int getShardSize() {
+        return shardSize;
+    }
+
+    public void setShardSize(int shardSize) {
+        this.shardSize = shardSize;
+    }
+
+    /**
+     * The number of violations of level error tolerated before Shellcheck is stopped, failing the build right away with
+     * truncated reports. Defaults to no limit.
+     * <p>
+     * Example: maxErrors = 10
+     */
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    public void setMaxErrors(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * The number of violations of level warning tolerated before Shellcheck is stopped, failing the build right away with
+     * truncated reports. Defaults to no limit.
+     * <p>
+     * Example: maxWarnings = 100
+     */
+    public int getMaxWarnings() {
+        return maxWarnings;
+    }
+
+    public void setMaxWarnings(int maxWarnings) {
+        this.maxWarnings = maxWarnings;
+    }
+
+    /**
+     * A git ref to compare the working tree with. When set, only the sources changed since the merge base with that ref,
+     * or not tracked yet, are checked. All the sources are checked if git is not available. By default, none.
+     * <p>
+     * Example: onlyChangedSince = "origin/main"
+     */
+    public String getOnlyChangedSince() {
+        return onlyChangedSince;
+    }
+
+    public void setOnlyChangedSince(String onlyChangedSince) {
+        this.onlyChangedSince = onlyChangedSince;
+    }
+
+    /**
+     * Whether Shellcheck follows every sourced script, even those not checked, as with {@code shellcheck -x}.
+     * Defaults to false.
+     */
+    public boolean isExternalSources() {
+        return externalSources;
+    }
+
+    public void setExternalSources(boolean externalSources) {
+        this.externalSources = externalSources;
+    }
+
+    /**
+     * Where the Shellcheck release archives are downloaded from when the installer is {@code download}. Defaults to the
+     * GitHub releases of Shellcheck.
+     */
+    public String getShellcheckDistributionBaseUrl() {
+        return shellcheckDistributionBaseUrl;
+    }
+
+    public void setShellcheckDistributionBaseUrl(String shellcheckDistributionBaseUrl) {
+        this.shellcheckDistributionBaseUrl = shellcheckDistributionBaseUrl;
+    }
+
+    /**
+     * The SHA-256 of the Shellcheck release archive for the current platform, verified when the installer is
+     * {@code download}. By default, none.
+     */
+    public String getShellcheckDistributionChecksum() {
+        return shellcheckDistributionChecksum;
+    }
+
+    public void setShellcheckDistributionChecksum(String shellcheckDistributionChecksum) {
+        this.shellcheckDistributionChecksum = shellcheckDistributionChecksum;
+    }
 }
@@ -0,0 +1,77 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.gradle.api.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.felipefzdz.gradle.shellcheck.Shell.exec;
+
+/**
+ * Asks the local git repository which files changed since a base ref, so only those are checked.
+ */
+public class ShellcheckGitChanges {
+
+    /**
+     * The files added, copied, modified or renamed between the merge base of {@code baseRef} and the working tree, along
+     * with the untracked files that are not ignored, as canonical files. Empty if git is not available or cannot resolve the ref.
+     */
+    public static Optional<Set<File>> changedSince(String baseRef, File projectDir, Logger logger) {
+        try {
+            final Optional<String> topLevel = git(projectDir, logger, "rev-parse", "--show-toplevel");
+            if (!topLevel.isPresent()) {
+                return Optional.empty();
+            }
+            final File root = new File(topLevel.get().trim());
+            // Against the merge base, so the changes of the base branch since the branch was created do not count
+            final String base = git(projectDir, logger, "merge-base", baseRef, "HEAD").map(String::trim).orElse(baseRef);
+            final Optional<String> changed = git(root, logger, "diff", "--name-only", "-z", "--diff-filter=ACMR", base, "--");
+            final Optional<String> untracked = git(root, logger, "ls-files", "--others", "--exclude-standard", "-z");
+            if (!changed.isPresent() || !untracked.isPresent()) {
+                return Optional.empty();
+            }
+            final Set<File> files = new HashSet<>();
+            for (String path : paths(changed.get(), untracked.get())) {
+                files.add(new File(root, path).getCanonicalFile());
+            }
+            return Optional.of(files);
+        } catch (IOException e) {
+            logger.info("Unable to run git", e);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private static List<String> paths(String... outputs) {
+        final List<String> paths = new ArrayList<>();
+        for (String output : outputs) {
+            Arrays.stream(output.split("\0"))
+                    .filter(path -> !path.isEmpty())
+                    .forEach(paths::add);
+        }
+        return paths;
+    }
+
+    private static Optional<String> git(File projectDir, Logger logger, String... arguments) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final Shell.ExecResult result = exec(command, projectDir, logger, output);
+        if (result.getExitCode() != 0) {
+            logger.info("Command " + String.join(" ", command) + " failed: " + result.getErrorOutput());
+            return Optional.empty();
+        }
+        return Optional.of(new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -1,13 +1,19 @@
 package com.felipefzdz.gradle.shellcheck;
 
+import org.apache.commons.io.FileUtils;
 import org.gradle.api.logging.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.felipefzdz.gradle.shellcheck.Shell.run;
 import static java.util.Arrays.asList;
@@ -15,6 +21,11 @@ import static java.util.Collections.singletonList;
 
 public class ShellcheckInstaller {
 
+    /**
+     * The installer provisioning the official Shellcheck release through {@link ShellcheckDistribution}.
+     */
+    public static final String DOWNLOAD = "download";
+
     private static final Map<String, List<String>> INSTALLER_COMMANDS = new HashMap<String, List<String>>() {{
         put("cabal", asList("cabal update", "cabal install ShellCheck"));
         put("stack", asList("stack update", "stack install ShellCheck"));
@@ -34,24 +45,114 @@ public class ShellcheckInstaller {
         put("nix-env", singletonList("nix-env -iA nixpkgs.shellcheck"));
     }};
 
-    public static void maybeInstallShellcheck(String installer, File projectDir, Logger logger) throws IOException, InterruptedException {
+    private static final Map<String, String> VERIFIED = new ConcurrentHashMap<>();
+    private static final Pattern VERSION = Pattern.compile("(?m)^version:\\s*(\\S+)");
+
+    /**
+     * Runs the installer unless the binary is known to be provisioned.
+     * <p>
+     * A binary is known to be provisioned once per daemon, or across daemons through a marker in the Gradle user home
+     * that is only trusted while the binary is left untouched. Otherwise {@code shellcheck --version} is probed, and
+     * the installer only runs when the binary is missing or reports a different version.
+     */
+    public static void maybeInstallShellcheck(String installer, String shellcheckBinary, String shellcheckVersion, File gradleUserHomeDir, File projectDir, Logger logger) throws IOException, InterruptedException {
         if (installer.isEmpty()) {
             return;
         }
 
-        if ("brew".equals(installer)) {
-            final String commandShellcheck = run("command shellcheck", projectDir, logger);
-            logger.debug("command shellcheck returned: " + commandShellcheck);
-            if (!commandShellcheck.contains("shellcheck: command not found")) {
-                logger.debug("Shellcheck is already installed. Skipping installation.");
+        final String key = installer + ":" + shellcheckBinary + ":" + shellcheckVersion;
+        final Optional<String> fingerprint = binaryFingerprint(shellcheckBinary);
+        if (fingerprint.isPresent() && fingerprint.get().equals(VERIFIED.get(key))) {
+            logger.debug("Shellcheck is already installed. Skipping installation.");
+            return;
+        }
+        final File marker = markerFile(gradleUserHomeDir, key);
+        if (fingerprint.isPresent() && marker.isFile() && fingerprint.get().equals(FileUtils.readFileToString(marker, StandardCharsets.UTF_8))) {
+            logger.debug("Shellcheck installation recorded at " + marker + " is still valid.");
+            logger.debug("Shellcheck is already installed. Skipping installation.");
+            VERIFIED.put(key, fingerprint.get());
+            return;
+        }
+
+        final Optional<String> probedVersion = probeVersion(shellcheckBinary, projectDir, logger);
+        if (probedVersion.isPresent() && probedVersion.get().equals(normalize(shellcheckVersion))) {
+            logger.debug("Shellcheck is already installed. Skipping installation.");
+        } else {
+            List<String> installerCommands = Optional.ofNullable(INSTALLER_COMMANDS.get(installer))
+                    .orElseThrow(() -> new IllegalArgumentException("Installer " + installer + " is not supported"));
+            for (String installerCommand : installerCommands) {
+                run(installerCommand, projectDir, logger);
+            }
+            final Optional<String> installedVersion = probeVersion(shellcheckBinary, projectDir, logger);
+            if (!installedVersion.isPresent()) {
                 return;
             }
+            if (!installedVersion.get().equals(normalize(shellcheckVersion))) {
+                logger.warn("Shellcheck " + installedVersion.get() + " was installed by " + installer + " while " + shellcheckVersion + " was configured.");
+            }
         }
+        // A binary that cannot be found is probed again next time instead
+        final Optional<String> installedFingerprint = binaryFingerprint(shellcheckBinary);
+        if (installedFingerprint.isPresent()) {
+            FileUtils.writeStringToFile(marker, installedFingerprint.get(), StandardCharsets.UTF_8);
+            VERIFIED.put(key, installedFingerprint.get());
+        }
+    }
 
-        List<String> installerCommands = Optional.ofNullable(INSTALLER_COMMANDS.get(installer))
-                .orElseThrow(() -> new IllegalArgumentException("Installer " + installer + " is not supported"));
-        for (String installerCommand : installerCommands) {
-            run(installerCommand, projectDir, logger);
+    /**
+     * The version reported by {@code shellcheck --version}, such as {@code 0.7.1}, or empty if the binary cannot be run.
+     */
+    static Optional<String> probeVersion(String shellcheckBinary, File projectDir, Logger logger) throws InterruptedException {
+        try {
+            final String output = run(asList(shellcheckBinary, "--version"), projectDir, logger);
+            logger.debug("shellcheck --version returned: " + output);
+            final Matcher matcher = VERSION.matcher(output);
+            return matcher.find() ? Optional.of(matcher.group(1)) : Optional.empty();
+        } catch (IOException e) {
+            logger.debug("Shellcheck binary " + shellcheckBinary + " could not be run: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    static String normalize(String version) {
+        return version.startsWith("v") ? version.substring(1) : version;
+    }
+
+    private static File markerFile(File gradleUserHomeDir, String key) {
+        return new File(gradleUserHomeDir, "caches/shellcheck/installer/" + Integer.toHexString(key.hashCode()) + "-" + key.replaceAll("[^A-Za-z0-9.-]", "_") + ".marker");
+    }
+
+    /**
+     * What identifies the binary without spawning any process, so replacing or removing it invalidates everything
+     * recorded about it. Empty when it cannot be found, in which case nothing should be recorded about it.
+     */
+    static Optional<String> binaryFingerprint(String shellcheckBinary) {
+        return resolveBinary(shellcheckBinary).map(binary -> binary.getPath() + ":" + binary.length() + ":" + binary.lastModified());
+    }
+
+    /**
+     * The file run for the given binary, looked up on the {@code PATH} when it is only a name, as the process would, and
+     * with its links resolved, so upgrading a package that links it elsewhere changes it too.
+     */
+    static Optional<File> resolveBinary(String shellcheckBinary) {
+        final List<File> candidates = new ArrayList<>();
+        if (shellcheckBinary.contains(File.separator)) {
+            candidates.add(new File(shellcheckBinary).getAbsoluteFile());
+        } else {
+            final String path = System.getenv("PATH");
+            for (String dir : path == null ? new String[0] : path.split(Pattern.quote(File.pathSeparator))) {
+                candidates.add(new File(dir.isEmpty() ? "." : dir, shellcheckBinary).getAbsoluteFile());
+            }
+        }
+        for (File candidate : candidates) {
+            if (candidate.isFile() && candidate.canExecute()) {
+                try {
+                    return Optional.of(candidate.toPath().toRealPath().toFile());
+                } catch (IOException e) {
+                    // Gone in the meantime, the next one is run instead
+                }
+            }
         }
+        return Optional.empty();
     }
 }
@@ -2,208 +2,486 @@ package com.felipefzdz.gradle.shellcheck;
 
 import org.apache.commons.io.FileUtils;
 import org.gradle.api.GradleException;
+import org.gradle.api.file.FileType;
 import org.gradle.api.reporting.SingleFileReport;
 import org.gradle.internal.logging.ConsoleRenderer;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.InputChanges;
+import org.gradle.workers.WorkQueue;
+
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.*;
 
-import static com.felipefzdz.gradle.shellcheck.Shell.run;
-import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
 public class ShellcheckInvoker {
 
-    private static final String SHELLCHECK_NOFRAMES_SORTED_XSL = "shellcheck-noframes-sorted.xsl";
+    static final String SHELLCHECK_NOFRAMES_SORTED_XSL = "shellcheck-noframes-sorted.xsl";
+    // Well below the ARG_MAX of the supported platforms, leaving room for the environment and the Docker arguments
+    private static final int MAX_ARGUMENTS_LENGTH = 128 * 1024;
+    private static final int SHARDS_PER_WORKER = 4;
+    private static final int MIN_ADAPTIVE_SHARD_SIZE = 16;
 
-    public static void invoke(Shellcheck task) {
-        maybeInstallShellcheck(task);
+    public static void invoke(Shellcheck task, InputChanges inputChanges) {
+        final ShellcheckMetrics metrics = new ShellcheckMetrics();
         final ShellcheckReports reports = task.getReports();
-        final File xmlDestination = calculateReportDestination(task, reports.getXml());
-
-        handleCheckstyleReport(task, xmlDestination).ifPresent(parsedReport -> {
-            handleTtyReport(task, reports, calculateReportDestination(task, reports.getTxt()));
-            handleHtmlReport(reports, xmlDestination);
-            calculateReportSummary(parsedReport).ifPresent(reportSummary -> {
-                final String message = getMessage(reports, reportSummary);
-                if (task.getIgnoreFailures()) {
-                    task.getLogger().warn(message);
-                } else {
-                    throw new GradleException(message);
-                }
+        final ShellcheckBuildService buildService = task.getBuildService().get();
+        final ShellcheckViolationFilter filter = new ShellcheckViolationFilter(task.getSeverity().get(), task.getIncludeRules().get(),
+                task.getExcludeRules().get());
+        final ShellcheckViolationLimit limit = buildService.startViolationLimit(task.getPath(), task.getMaxErrors().get(),
+                task.getMaxWarnings().get(), filter);
+        final ShellcheckResultStore store = new ShellcheckResultStore(task.getResultsDir().get().getAsFile());
+        final Optional<ShellcheckSummary> summary;
+        final ShellcheckResult result;
+        try {
+            final String shellcheckBinary = time(metrics, "install", "Error installing Shellcheck", () -> maybeInstallShellcheck(task));
+            result = runShellcheck(task, inputChanges, shellcheckBinary, store, filter, limit, metrics);
+            // The reports of the previous run still hold when no script was checked again with different violations
+            if (metrics.isIncremental() && !store.isModified() && !result.isTruncated() && reportsExist(reports)
+                    && task.hasIdentifiedRenderers()) {
+                task.getLogger().info("Shellcheck violations did not change, keeping the previous reports");
+            } else {
+                time(metrics, "reports", "Error while rendering the Shellcheck reports", () -> {
+                    final ShellcheckReportModel model = new ShellcheckReportModel(result, task.getShellcheckVersion().get(),
+                            task.getProjectDir().get().getAsFile(), ShellcheckReportRenderers.htmlStylesheet(reports));
+                    ShellcheckReportRenderers.renderAll(model, reports, metrics);
+                    return null;
+                });
+            }
+            time(metrics, "console", "Error while showing the Shellcheck violations", () -> {
+                handleConsole(task, result, store, metrics.isIncremental());
+                return null;
             });
+            summary = calculateReportSummary(result);
+            metrics.setViolations(summary.map(ShellcheckSummary::getViolations).orElse(0));
+            try {
+                metrics.write(task.getPath(), task.getMetricsFile().get().getAsFile());
+            } catch (IOException e) {
+                throw new GradleException("Error while writing Shellcheck metrics", e);
+            }
+        } finally {
+            buildService.finishViolationLimit(task.getPath());
+        }
+        task.getLogger().lifecycle(metrics.describe());
+        summary.ifPresent(it -> {
+            final String message = getMessage(reports, it, result);
+            if (task.getIgnoreFailures()) {
+                task.getLogger().warn(message);
+            } else {
+                throw new GradleException(message);
+            }
         });
+    }
+
+    /**
+     * Times a phase of the run, failing the task with the given message if it cannot complete.
+     */
+    private static <T> T time(ShellcheckMetrics metrics, String phase, String failure, ShellcheckMetrics.Phase<T> work) {
+        try {
+            return metrics.time(phase, work);
+        } catch (IOException e) {
+            throw new GradleException(failure, e);
+        }
+    }
 
+    private static boolean reportsExist(ShellcheckReports reports) {
+        return reports.getEnabled().stream().allMatch(report -> report.getOutputLocation().get().getAsFile().isFile());
     }
 
-    private static void maybeInstallShellcheck(Shellcheck task) {
+    private static String maybeInstallShellcheck(Shellcheck task) {
+        if (task.getUseDocker().get()) {
+            return "shellcheck";
+        }
+        if (ShellcheckInstaller.DOWNLOAD.equals(task.getInstaller().get())) {
+            return ShellcheckDistribution.provision(task.getShellcheckDistributionBaseUrl().get(), task.getShellcheckVersion().get(),
+                    task.getShellcheckDistributionChecksum().get(), task.getGradleUserHomeDir().get().getAsFile(), task.getLogger()).getAbsolutePath();
+        }
         try {
-            if (!task.isUseDocker()) {
-                ShellcheckInstaller.maybeInstallShellcheck(task.getInstaller(), task.getProjectDir(), task.getLogger());
-            }
+            ShellcheckInstaller.maybeInstallShellcheck(task.getInstaller().get(), task.getShellcheckBinary().get(), task.getShellcheckVersion().get(),
+                    task.getGradleUserHomeDir().get().getAsFile(), task.getProjectDir().get().getAsFile(), task.getLogger());
+            return task.getShellcheckBinary().get();
         } catch (IOException | InterruptedException e) {
             throw new GradleException("Error installing Shellcheck ", e);
         }
     }
 
-    private static void handleHtmlReport(ShellcheckReports reports, File xmlDestination) {
-        try {
-            if (reports.getHtml().isEnabled()) {
-                TransformerFactory factory = TransformerFactory.newInstance();
-                InputStream stylesheet = reports.getHtml().getStylesheet() != null ?
-                        new FileInputStream(reports.getHtml().getStylesheet().asFile()) :
-                        ShellcheckInvoker.class.getClassLoader().getResourceAsStream(SHELLCHECK_NOFRAMES_SORTED_XSL);
-                Source xslt = new StreamSource(stylesheet);
-                Transformer transformer = factory.newTransformer(xslt);
+    private static void handleConsole(Shellcheck task, ShellcheckResult result, ShellcheckResultStore store, boolean incremental) {
+        if (!task.getShowViolations().get()) {
+            return;
+        }
+        final File projectDir = task.getProjectDir().get().getAsFile();
+        if (task.getContinuous().get() && incremental) {
+            // Between the builds of a continuous session only what was just checked again is news
+            final ShellcheckResult rechecked = result.only(store.getUpdatedFiles());
+            final int unchanged = result.getViolationsByFile().size() - rechecked.getViolationsByFile().size();
+            task.getLogger().lifecycle(ShellcheckTtyWriter.format(rechecked, projectDir)
+                    + (unchanged > 0 ? "\nShellcheck violations of " + unchanged + " unchanged files are not shown again." : ""));
+            return;
+        }
+        // Once the limit is reached, the console shows whatever the reports hold, in the same order
+        task.getLogger().lifecycle(ShellcheckTtyWriter.format(result, projectDir));
+    }
 
-                Source text = new StreamSource(xmlDestination);
-                transformer.transform(text, new StreamResult(reports.getHtml().getDestination()));
+    private static ShellcheckResult runShellcheck(Shellcheck task, InputChanges inputChanges, String shellcheckBinary,
+                                                  ShellcheckResultStore store, ShellcheckViolationFilter filter,
+                                                  ShellcheckViolationLimit limit, ShellcheckMetrics metrics) {
+        final Set<File> sources = task.getSources().getFiles();
+        final File projectDir = task.getProjectDir().get().getAsFile();
+        if (task.getUseDocker().get()) {
+            // Already pulled in most builds, otherwise the pull goes on while the scripts are found
+            ShellcheckDockerImages.warmUp(ShellcheckDockerImages.image(task.getShellcheckVersion().get()));
+        }
+        final Optional<Set<File>> changedSince = time(metrics, "git",
+                "Error while finding the files changed since " + task.getOnlyChangedSince().get(), () -> changedSince(task));
+        // A store left incomplete by a run stopped early, or checking only some files, does not know about every script
+        final boolean incremental = inputChanges.isIncremental() && store.isComplete() && !changedSince.isPresent();
+        metrics.setIncremental(incremental);
+        final ShellcheckSourceIndex index;
+        try {
+            index = ShellcheckSourceIndex.load(task.getResultsDir().get().getAsFile(), projectDir);
+        } catch (IOException e) {
+            throw new GradleException("Error while reading the sources of the scripts checked before", e);
+        }
+        final List<File> candidates = time(metrics, "discovery", "Error while finding the scripts to check", () -> {
+            if (incremental) {
+                return changedScripts(task, inputChanges, store, index);
+            }
+            final List<File> all = allScripts(task, sources, store, index);
+            if (!changedSince.isPresent()) {
+                return all;
             }
-            if (!reports.getXml().isEnabled()) {
-                Files.deleteIfExists(xmlDestination.toPath());
+            store.markIncomplete();
+            final List<File> changed = new ArrayList<>();
+            for (File script : all) {
+                if (changedSince.get().contains(script.getCanonicalFile())) {
+                    changed.add(script);
+                }
+            }
+            task.getLogger().info("Shellcheck will only check the " + changed.size() + " of " + all.size()
+                    + " files changed since " + task.getOnlyChangedSince().get());
+            return changed;
+        });
+        try {
+            index.save();
+            store.writeOrigin(task.getPath(), projectDir);
+        } catch (IOException e) {
+            throw new GradleException("Error while writing the Shellcheck results", e);
+        }
+        final ShellcheckAnalysisCache cache = new ShellcheckAnalysisCache(task.getAnalysisCacheDir().get().getAsFile(),
+                analysisKey(task), projectDir, index);
+        final List<File> scripts = time(metrics, "analysisCache", "Error while reading the Shellcheck analysis cache", () -> {
+            final Map<String, List<ShellcheckViolation>> analyses = new HashMap<>();
+            final Map<String, File> unchecked = new LinkedHashMap<>();
+            for (File script : candidates) {
+                final Optional<List<ShellcheckViolation>> analysis = cache.get(script);
+                if (analysis.isPresent()) {
+                    analyses.put(relativePath(projectDir, script), analysis.get());
+                } else {
+                    unchecked.put(relativePath(projectDir, script), script);
+                }
+            }
+            // Shellcheck only follows the sources it checks too, so a script is always checked along with them
+            final int sourcing = unchecked.size();
+            for (File script : new ArrayList<>(unchecked.values())) {
+                for (File sourced : checkedSourcesOf(task, sources, index, script)) {
+                    unchecked.putIfAbsent(relativePath(projectDir, sourced), sourced);
+                }
+            }
+            if (unchecked.size() > sourcing) {
+                task.getLogger().info("Shellcheck will also check " + (unchecked.size() - sourcing) + " files sourced by the ones checked again");
+            }
+            int reused = 0;
+            for (Map.Entry<String, List<ShellcheckViolation>> analysis : analyses.entrySet()) {
+                if (!unchecked.containsKey(analysis.getKey())) {
+                    final List<ShellcheckViolation> violations = filter.apply(analysis.getValue());
+                    violations.forEach(limit::record);
+                    store.put(analysis.getKey(), violations);
+                    reused++;
+                }
+            }
+            if (reused > 0) {
+                task.getLogger().info("Shellcheck reused the analysis of " + reused + " files checked before in the same state");
+            }
+            return new ArrayList<>(unchecked.values());
+        });
+        metrics.setFiles(scripts.size());
+        task.getLogger().info("Shellcheck will check " + scripts.size() + " files");
+        task.getLogger().debug("Shellcheck scripts: " + scripts);
+        if (!scripts.isEmpty()) {
+            final List<String> dockerCommand = time(metrics, "docker", "Error while preparing the Shellcheck container",
+                    () -> dockerCommand(task, sources));
+            final List<List<File>> shards = shards(task, scripts, index);
+            final List<File> outputs = time(metrics, "check", "Error while running Shellcheck", () -> {
+                final List<File> shardOutputs = submitShards(task, dockerCommand, shards, shellcheckBinary);
+                task.getWorkerExecutor().await();
+                return shardOutputs;
+            });
+            final boolean complete = time(metrics, "store", "Error while storing the Shellcheck results", () -> {
+                boolean allShards = true;
+                for (int i = 0; i < shards.size(); i++) {
+                    final File output = outputs.get(i);
+                    final Optional<ShellcheckBuildService.ShardResult> parsed = task.getBuildService().get().takeShardResult(output);
+                    if (!parsed.isPresent()) {
+                        // Skipped once the violation limit was reached, the previous violations of its scripts no longer hold
+                        for (File script : shards.get(i)) {
+                            store.remove(relativePath(projectDir, script));
+                        }
+                        allShards = false;
+                        continue;
+                    }
+                    metrics.addShard(output.length());
+                    final ShellcheckResult.Builder shardResult = ShellcheckResult.builder();
+                    for (ShellcheckViolation violation : parsed.get().getViolations()) {
+                        shardResult.add(violation.withFile(relativePath(projectDir, new File(violation.getFile()))));
+                    }
+                    final boolean shardComplete = parsed.get().isComplete();
+                    allShards &= shardComplete;
+                    // The analysis of a shard cut short is not the full one
+                    store(store, shardComplete ? cache : null, filter, projectDir, shards.get(i), shardResult.build());
+                }
+                return allShards;
+            });
+            try {
+                cache.cleanup();
+            } catch (IOException e) {
+                throw new GradleException("Error while cleaning up the Shellcheck analysis cache", e);
+            }
+            if (!complete) {
+                try {
+                    store.markIncomplete();
+                } catch (IOException e) {
+                    throw new GradleException("Error while writing the Shellcheck results", e);
+                }
+                return time(metrics, "load", "Error while loading the stored Shellcheck results", store::load).truncated(limit.getReason());
             }
-        } catch (TransformerException | IOException e) {
-            throw new GradleException("Error while handling Shellcheck html report", e);
         }
+        return time(metrics, "load", "Error while loading the stored Shellcheck results", store::load);
     }
 
-    private static void handleTtyReport(Shellcheck task, ShellcheckReports reports, File txtDestination) {
-        try {
-            Optional<String> maybeReport = Optional.empty();
-            if (reports.getTxt().isEnabled()) {
-                maybeReport = Optional.of(runShellcheck(task, "tty"));
+    private static Optional<Set<File>> changedSince(Shellcheck task) {
+        final String baseRef = task.getOnlyChangedSince().get();
+        if (baseRef.isEmpty()) {
+            return Optional.empty();
+        }
+        final Optional<Set<File>> changed = ShellcheckGitChanges.changedSince(baseRef, task.getProjectDir().get().getAsFile(), task.getLogger());
+        if (!changed.isPresent()) {
+            task.getLogger().warn("Unable to find the files changed since " + baseRef + " with git, checking all of them.");
+        }
+        return changed;
+    }
+
+    private static List<File> allScripts(Shellcheck task, Set<File> sources, ShellcheckResultStore store, ShellcheckSourceIndex index) throws IOException {
+        store.clear();
+        final List<File> scripts = ShellcheckSourceFinder.find(sources, task.getFileExtensions().get());
+        index.clear();
+        for (File script : scripts) {
+            index.update(script);
+        }
+        return scripts;
+    }
 
-                FileUtils.writeStringToFile(txtDestination, maybeReport.get(), StandardCharsets.UTF_8);
+    private static List<File> changedScripts(Shellcheck task, InputChanges inputChanges, ShellcheckResultStore store, ShellcheckSourceIndex index) throws IOException {
+        final File projectDir = task.getProjectDir().get().getAsFile();
+        final List<File> scripts = new ArrayList<>();
+        final Set<String> changed = new HashSet<>();
+        for (FileChange change : inputChanges.getFileChanges(task.getSources())) {
+            if (change.getFileType() == FileType.DIRECTORY) {
+                continue;
             }
-            if (task.isShowViolations()) {
-                task.getLogger().lifecycle(maybeReport.orElse(runShellcheck(task, "tty")));
+            final File file = change.getFile();
+            final String path = relativePath(projectDir, file);
+            changed.add(path);
+            if (change.getChangeType() != ChangeType.REMOVED && ShellcheckSourceFinder.matches(file, task.getFileExtensions().get())) {
+                // Its entry is replaced once checked again, and left untouched if its violations did not change
+                scripts.add(file);
+                index.update(file);
+            } else {
+                store.remove(path);
+                index.remove(path);
             }
-        } catch (IOException | InterruptedException e) {
-            throw new GradleException("Error while handling Shellcheck tty report", e);
         }
+        // Shellcheck follows the scripts sourced by the ones it checks, so their violations may have changed too
+        final Set<String> dependents = index.dependentsOf(changed);
+        for (String dependent : dependents) {
+            final File script = new File(projectDir, dependent);
+            if (script.isFile()) {
+                scripts.add(script);
+            }
+        }
+        if (!dependents.isEmpty()) {
+            task.getLogger().info("Shellcheck will also check " + dependents.size() + " files sourcing the changed ones");
+        }
+        return scripts;
     }
 
-    private static Optional<Document> handleCheckstyleReport(Shellcheck task, File xmlDestination) {
-        try {
-            final String rawOutput = runShellcheck(task, "checkstyle").trim();
-            if (rawOutput.isEmpty() || rawOutput.contains("No files specified.")) {
-                return Optional.empty();
+    /**
+     * The scripts sourced by the given one, directly or not, which the task checks as well. Any other is only followed by
+     * Shellcheck with {@code --external-sources}.
+     */
+    private static List<File> checkedSourcesOf(Shellcheck task, Set<File> sources, ShellcheckSourceIndex index, File script) {
+        final File projectDir = task.getProjectDir().get().getAsFile();
+        final List<File> checked = new ArrayList<>();
+        for (String sourced : index.sourcesOf(relativePath(projectDir, script))) {
+            final File file = (new File(sourced).isAbsolute() ? new File(sourced) : new File(projectDir, sourced)).getAbsoluteFile();
+            if (file.isFile() && ShellcheckSourceFinder.matches(file, task.getFileExtensions().get())
+                    && sources.stream().anyMatch(root -> file.toPath().normalize().startsWith(root.getAbsoluteFile().toPath().normalize()))) {
+                checked.add(file);
             }
-            assertContainsXml(rawOutput);
-            String checkstyleFormatted = rawOutput.substring(rawOutput.indexOf("<?xml"));
-            task.getLogger().debug("Shellcheck output: " + checkstyleFormatted);
-            FileUtils.writeStringToFile(xmlDestination, checkstyleFormatted, StandardCharsets.UTF_8);
-            return Optional.of(parseShellCheckXml(xmlDestination));
-        } catch (IOException | InterruptedException | ParserConfigurationException | SAXException e) {
-            throw new GradleException("Error while handling Shellcheck checkstyle report", e);
         }
+        return checked;
     }
 
-    private static File calculateReportDestination(Shellcheck task, SingleFileReport report) {
-        return report.isEnabled() ? report.getDestination() : new File(task.getTemporaryDir(), report.getDestination().getName());
+    private static void store(ShellcheckResultStore store, ShellcheckAnalysisCache cache, ShellcheckViolationFilter filter, File projectDir,
+                              List<File> batch, ShellcheckResult result) throws IOException {
+        for (File script : batch) {
+            final String file = relativePath(projectDir, script);
+            final List<ShellcheckViolation> violations = result.getViolationsByFile().getOrDefault(file, Collections.emptyList());
+            if (cache != null) {
+                cache.put(script, violations);
+            }
+            store.put(file, filter.apply(violations));
+        }
+    }
+
+    /**
+     * What changes the full results of Shellcheck besides the scripts themselves.
+     */
+    private static String analysisKey(Shellcheck task) {
+        return "shellcheck " + task.getProbedShellcheckVersion().get() + (task.getExternalSources().get() ? " --external-sources" : "");
     }
 
-    private static void assertContainsXml(String potentialXml) {
-        if (!potentialXml.contains("<?xml version")) {
-            throw new GradleException(String.format("Error while executing shellcheck: %s", potentialXml));
+    /**
+     * How scripts are named in the results and reports: relative to the project directory, so they do not change when
+     * the project is checked out somewhere else, and results cached on one machine are valid on any other.
+     */
+    static String relativePath(File projectDir, File script) {
+        try {
+            return projectDir.getAbsoluteFile().toPath().relativize(script.getAbsoluteFile().toPath().normalize()).toString().replace(File.separatorChar, '/');
+        } catch (IllegalArgumentException e) {
+            // On another drive than the project
+            return script.getAbsolutePath();
         }
     }
 
-    private static Document parseShellCheckXml(File xmlDestination) throws ParserConfigurationException, IOException, SAXException {
-        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(xmlDestination);
+    private static List<List<File>> shards(Shellcheck task, List<File> scripts, ShellcheckSourceIndex index) {
+        final File projectDir = task.getProjectDir().get().getAsFile();
+        // Shellcheck only follows the sources checked in the same process, so a script is never split from them
+        final List<List<File>> groups = ShellcheckShards.groups(scripts, script -> index.sourcesOf(relativePath(projectDir, script)).stream()
+                .map(sourced -> new File(sourced).isAbsolute() ? new File(sourced) : new File(projectDir, sourced))
+                .collect(toList()));
+        if (task.getShardSize().get() > 0) {
+            return ShellcheckShards.byCount(groups, task.getShardSize().get(), MAX_ARGUMENTS_LENGTH);
+        }
+        // Several shards per worker keep every worker busy when some shards take longer than others
+        final int shards = Math.max(1, task.getMaxWorkers().get() * SHARDS_PER_WORKER);
+        return ShellcheckShards.bySize(groups, Math.min(shards, (scripts.size() + MIN_ADAPTIVE_SHARD_SIZE - 1) / MIN_ADAPTIVE_SHARD_SIZE),
+                MAX_ARGUMENTS_LENGTH);
     }
 
-    private static String quoted(String txt) {
-        return "\"" + txt + "\"";
+    private static List<File> submitShards(Shellcheck task, List<String> dockerCommand, List<List<File>> shards, String shellcheckBinary) {
+        final WorkQueue queue = task.getWorkerExecutor().noIsolation();
+        final List<File> outputs = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            final String shard = "shellcheck-" + UUID.randomUUID();
+            final List<String> command = shardCommand(task, dockerCommand, shard, shellcheckCommand(task, shards.get(i), shellcheckBinary));
+            final List<String> killCommand = killCommand(task, dockerCommand, shard);
+            final File output = new File(task.getTemporaryDir(), "shard-" + i + ".json");
+            // A shard skipped once the violation limit is reached leaves no output behind
+            FileUtils.deleteQuietly(output);
+            outputs.add(output);
+            queue.submit(ShellcheckWorkAction.class, parameters -> {
+                parameters.getCommand().set(command);
+                parameters.getKillCommand().set(killCommand);
+                parameters.getWorkingDir().set(task.getProjectDir());
+                parameters.getOutputFile().set(output);
+                parameters.getBuildService().set(task.getBuildService());
+                parameters.getTaskPath().set(task.getPath());
+            });
+        }
+        task.getLogger().info("Shellcheck submitted " + shards.size() + " shards");
+        return outputs;
     }
 
-    public static String runShellcheck(Shellcheck task, String format) throws IOException, InterruptedException {
+    private static List<String> shellcheckCommand(Shellcheck task, List<File> scripts, String shellcheckBinary) {
         final List<String> command = new ArrayList<>();
-
-        final Set<File> sources = task.getSources()
-                .getFiles();
-
-        if (sources.isEmpty()) {
-            return "No source files specified.";
-        } else {
-            task.getLogger().debug("sources: " + sources);
+        command.add(shellcheckBinary);
+        command.add("-f");
+        command.add("json1");
+        // Everything is kept, the severity and rules of the task are applied to the results afterwards
+        command.add("--severity=style");
+        if (task.getExternalSources().get()) {
+            command.add("--external-sources");
         }
+        scripts.forEach(script -> command.add(script.getAbsolutePath()));
+        return command;
+    }
 
-        maybePrepareCommandToUserDocker(command, sources, task.getShellcheckVersion(), task.isUseDocker());
-        final String shellcheckBinary = task.isUseDocker() ? "shellcheck" : task.getShellcheckBinary();
-        String cmd = findCommand(sources.stream().map(File::getAbsolutePath).collect(joining(" "))) + " | xargs " + shellcheckBinary + " -f " + format + " --severity=" + task.getSeverity();
-        command.add("sh");
-        command.add("-c");
-        command.add(cmd);
-
-        task.getLogger().debug("Command to run Shellcheck: " + String.join(" ", command));
+    /**
+     * The command running Shellcheck over a shard, in its own container named after the shard, or in the shared one
+     * recording its process id under the name of the shard, so {@link #killCommand} can find it.
+     */
+    private static List<String> shardCommand(Shellcheck task, List<String> dockerCommand, String shard, List<String> shellcheckCommand) {
+        final List<String> command = new ArrayList<>(dockerCommand);
+        if (task.getUseDocker().get() && task.getReuseDockerContainer().get()) {
+            command.addAll(Arrays.asList("sh", "-c", "echo $$ > /tmp/" + shard + ".pid && exec \"$@\"", "sh"));
+        } else if (task.getUseDocker().get()) {
+            command.addAll(Arrays.asList("--name", shard, ShellcheckDockerImages.image(task.getShellcheckVersion().get())));
+        }
+        command.addAll(shellcheckCommand);
+        return command;
+    }
 
-        return run(command, task.getProjectDir(), task.getLogger());
+    /**
+     * The command killing Shellcheck in the container of a shard, since killing the Docker client leaves it running.
+     */
+    private static List<String> killCommand(Shellcheck task, List<String> dockerCommand, String shard) {
+        if (!task.getUseDocker().get()) {
+            return Collections.emptyList();
+        }
+        if (task.getReuseDockerContainer().get()) {
+            final List<String> command = new ArrayList<>(dockerCommand);
+            command.addAll(Arrays.asList("sh", "-c", "kill -9 \"$(cat /tmp/" + shard + ".pid)\""));
+            return command;
+        }
+        return Arrays.asList("docker", "kill", shard);
     }
 
-    private static void maybePrepareCommandToUserDocker(List<String> command, Set<File> sources, String shellcheckVersion, boolean useDocker) {
-        if (useDocker) {
+    /**
+     * The command running Shellcheck in Docker, resolved once per task since it may start the shared container. Without
+     * reuse, the name and image of the container are left to {@link #shardCommand}.
+     */
+    private static List<String> dockerCommand(Shellcheck task, Set<File> sources) {
+        final List<String> command = new ArrayList<>();
+        if (!task.getUseDocker().get()) {
+            return command;
+        }
+        final String image = ShellcheckDockerImages.image(task.getShellcheckVersion().get());
+        // Docker reports a missing image itself when the container starts
+        ShellcheckDockerImages.digest(image);
+        if (task.getReuseDockerContainer().get()) {
+            command.add("docker");
+            command.add("exec");
+            command.add(task.getBuildService().get().dockerContainer(image, sources));
+        } else {
             command.add("docker");
             command.add("run");
             command.add("--rm");
-
-            final List<String> volumes = sources.stream()
-                    .map(File::getAbsolutePath)
-                    .map(folder -> folder + ":" + folder)
-                    .collect(toList());
-            volumes.forEach(volume -> {
-                command.add("-v");
-                command.add(volume);
-            });
-            command.add("koalaman/shellcheck-alpine:" + shellcheckVersion);
+            command.addAll(ShellcheckDockerMounts.arguments(ShellcheckDockerMounts.plan(sources,
+                    task.getBuildService().get().getParameters().getRootDir().get().getAsFile())));
         }
+        return command;
     }
 
-    private static String findCommand(String sources) {
-        return "/usr/bin/find " + sources + " -type f \\( -name '*.sh' -o -name '*.bash' -o -name '*.ksh' -o -name '*.bashrc' -o -name '*.bash_profile' -o -name '*.bash_login' -o -name '*.bash_logout' \\)";
+    private static String getMessage(ShellcheckReports reports, ShellcheckSummary summary, ShellcheckResult result) {
+        return (result.isTruncated() ? "Shellcheck stopped early after finding " + result.getTruncation() + ". " : "")
+                + "Shellcheck violations were found." + getReportUrlMessage(reports) + "" + getViolationMessage(summary);
     }
 
-    private static String getMessage(ShellcheckReports reports, ReportSummary reportSummary) {
-        return "Shellcheck violations were found." + getReportUrlMessage(reports) + "" + getViolationMessage(reportSummary);
-    }
-
-    private static Optional<ReportSummary> calculateReportSummary(Document reportXml) {
-        NodeList fileNodes = reportXml.getDocumentElement().getChildNodes();
-        Set<String> filesWithError = new HashSet<>();
-        Set<String> violationsBySeverityCount = new HashSet<>();
-        for (int i = 0; i < fileNodes.getLength(); i++) {
-            Node fileNode = fileNodes.item(i);
-            if (fileNode.getNodeType() == Node.ELEMENT_NODE) {
-                final NodeList errorNodes = fileNode.getChildNodes();
-                for (int j = 0; j < errorNodes.getLength(); j++) {
-                    Node errorNode = errorNodes.item(j);
-                    if (errorNode.getNodeType() == Node.ELEMENT_NODE) {
-                        if ("error".equals(errorNode.getNodeName())) {
-                            filesWithError.add(fileNode.getAttributes().getNamedItem("name").getNodeValue());
-                            violationsBySeverityCount.add(errorNode.getAttributes().getNamedItem("severity").getNodeValue());
-                        }
-                    }
-                }
-            }
-        }
-        return filesWithError.size() > 0 ? Optional.of(new ReportSummary(filesWithError.size(), violationsBySeverityCount.size())) : Optional.empty();
+    private static Optional<ShellcheckSummary> calculateReportSummary(ShellcheckResult result) {
+        final ShellcheckSummary summary = ShellcheckSummary.of(result);
+        return summary.getFilesWithViolations() > 0 ? Optional.of(summary) : Optional.empty();
     }
 
     private static String getReportUrlMessage(ShellcheckReports reports) {
@@ -211,19 +489,13 @@ public class ShellcheckInvoker {
         return report != null ? " See the report at: " + new ConsoleRenderer().asClickableFileUrl(report.getDestination()) + "\n" : "\n";
     }
 
-    private static String getViolationMessage(ReportSummary reportSummary) {
-        return reportSummary.filesWithError > 0 ?
-                "Shellcheck files with violations: " + reportSummary.filesWithError + "\nShellcheck violations by severity: " + reportSummary.violationsBySeverity :
+    private static String getViolationMessage(ShellcheckSummary summary) {
+        return summary.getFilesWithViolations() > 0 ?
+                "Shellcheck files with violations: " + summary.getFilesWithViolations() +
+                        "\nShellcheck violations: " + summary.getViolations() +
+                        "\nShellcheck violations by severity: " + summary.describeBySeverity() +
+                        "\nShellcheck violations by rule: " + summary.describeByRule() +
+                        "\nShellcheck violations by file: " + summary.describeByFile() :
                 "\n";
     }
-
-    static class ReportSummary {
-        private final int filesWithError;
-        private final int violationsBySeverity;
-
-        public ReportSummary(int filesWithError, int violationsBySeverity) {
-            this.filesWithError = filesWithError;
-            this.violationsBySeverity = violationsBySeverity;
-        }
-    }
 }
@@ -0,0 +1,242 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.Consumer;
+
+/**
+ * Reads the {@code json1} output format of Shellcheck, handing every comment to a consumer as soon as it has been read.
+ */
+public class ShellcheckJsonParser {
+
+    private final PushbackReader reader;
+
+    private ShellcheckJsonParser(Reader reader) {
+        this.reader = new PushbackReader(reader, 1);
+    }
+
+    public static ShellcheckResult parse(String json) throws IOException {
+        final ShellcheckResult.Builder builder = ShellcheckResult.builder();
+        parse(new StringReader(json), builder::add);
+        return builder.build();
+    }
+
+    public static void parse(Reader reader, Consumer<ShellcheckViolation> consumer) throws IOException {
+        new ShellcheckJsonParser(reader).readDocument(consumer);
+    }
+
+    private void readDocument(Consumer<ShellcheckViolation> consumer) throws IOException {
+        expect('{');
+        if (!consumeIf('}')) {
+            do {
+                final String key = readString();
+                expect(':');
+                if ("comments".equals(key)) {
+                    readComments(consumer);
+                } else {
+                    skipValue();
+                }
+            } while (consumeIf(','));
+            expect('}');
+        }
+    }
+
+    private void readComments(Consumer<ShellcheckViolation> consumer) throws IOException {
+        expect('[');
+        if (consumeIf(']')) {
+            return;
+        }
+        do {
+            consumer.accept(readComment());
+        } while (consumeIf(','));
+        expect(']');
+    }
+
+    private ShellcheckViolation readComment() throws IOException {
+        String file = null;
+        String level = null;
+        String message = null;
+        int line = 0;
+        int endLine = 0;
+        int column = 0;
+        int endColumn = 0;
+        int code = 0;
+        expect('{');
+        if (!consumeIf('}')) {
+            do {
+                final String key = readString();
+                expect(':');
+                switch (key) {
+                    case "file":
+                        file = readString();
+                        break;
+                    case "level":
+                        level = readString();
+                        break;
+                    case "message":
+                        message = readString();
+                        break;
+                    case "line":
+                        line = readInt();
+                        break;
+                    case "endLine":
+                        endLine = readInt();
+                        break;
+                    case "column":
+                        column = readInt();
+                        break;
+                    case "endColumn":
+                        endColumn = readInt();
+                        break;
+                    case "code":
+                        code = readInt();
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while (consumeIf(','));
+            expect('}');
+        }
+        return new ShellcheckViolation(file, line, endLine, column, endColumn, level, code, message);
+    }
+
+    private void skipValue() throws IOException {
+        final int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            final char close = c == '{' ? '}' : ']';
+            next();
+            if (!consumeIf(close)) {
+                do {
+                    if (close == '}') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (consumeIf(','));
+                expect(close);
+            }
+        } else {
+            while (isLiteralChar(peek())) {
+                next();
+            }
+        }
+    }
+
+    private int readInt() throws IOException {
+        skipWhitespace();
+        final StringBuilder number = new StringBuilder();
+        while (isLiteralChar(peek())) {
+            number.append((char) next());
+        }
+        if (number.length() == 0 && peek() == -1) {
+            throw new TruncatedOutputException();
+        }
+        try {
+            return Integer.parseInt(number.toString());
+        } catch (NumberFormatException e) {
+            throw new IOException("Expected a number in Shellcheck output but found '" + number + "'");
+        }
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        final StringBuilder value = new StringBuilder();
+        int c;
+        while ((c = next()) != '"') {
+            if (c == '\\') {
+                final int escaped = next();
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        final char[] hex = new char[4];
+                        for (int i = 0; i < hex.length; i++) {
+                            hex[i] = (char) next();
+                        }
+                        value.append((char) Integer.parseInt(new String(hex), 16));
+                        break;
+                    default:
+                        value.append((char) escaped);
+                }
+            } else {
+                value.append((char) c);
+            }
+        }
+        return value.toString();
+    }
+
+    private static boolean isLiteralChar(int c) {
+        return c == '-' || c == '+' || c == '.' || Character.isLetterOrDigit(c);
+    }
+
+    private boolean consumeIf(char expected) throws IOException {
+        if (peek() == expected) {
+            next();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) throws IOException {
+        final int c = peek();
+        if (c == -1) {
+            throw new TruncatedOutputException();
+        }
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' in Shellcheck output but found '" + (char) c + "'");
+        }
+        next();
+    }
+
+    private int peek() throws IOException {
+        skipWhitespace();
+        final int c = reader.read();
+        if (c != -1) {
+            reader.unread(c);
+        }
+        return c;
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = reader.read();
+        } while (c != -1 && Character.isWhitespace(c));
+        if (c != -1) {
+            reader.unread(c);
+        }
+    }
+
+    private int next() throws IOException {
+        final int c = reader.read();
+        if (c == -1) {
+            throw new TruncatedOutputException();
+        }
+        return c;
+    }
+
+    private static class TruncatedOutputException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        TruncatedOutputException() {
+            super("Unexpected end of Shellcheck output");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes violations using the {@code json1} output format of Shellcheck, so they can be read back by {@link ShellcheckJsonParser}.
+ */
+public class ShellcheckJsonWriter {
+
+    public static void write(Collection<ShellcheckViolation> violations, Writer writer) throws IOException {
+        writer.write("{\"comments\":[");
+        boolean first = true;
+        for (ShellcheckViolation violation : violations) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writeViolation(violation, writer);
+        }
+        writer.write("]}\n");
+    }
+
+    /**
+     * Writes every violation of the result as soon as it is reached, without building the document in memory.
+     */
+    public static void write(ShellcheckResult result, Writer writer) throws IOException {
+        writer.write("{\"comments\":[");
+        boolean first = true;
+        for (List<ShellcheckViolation> violations : result.getViolationsByFile().values()) {
+            for (ShellcheckViolation violation : violations) {
+                if (!first) {
+                    writer.write(",\n");
+                }
+                first = false;
+                writeViolation(violation, writer);
+            }
+        }
+        writer.write("]}\n");
+    }
+
+    static void writeViolation(ShellcheckViolation violation, Writer writer) throws IOException {
+        writer.write("{\"file\":" + quote(violation.getFile())
+                + ",\"line\":" + violation.getLine()
+                + ",\"endLine\":" + violation.getEndLine()
+                + ",\"column\":" + violation.getColumn()
+                + ",\"endColumn\":" + violation.getEndColumn()
+                + ",\"level\":" + quote(violation.getLevel())
+                + ",\"code\":" + violation.getCode()
+                + ",\"message\":" + quote(violation.getMessage())
+                + "}");
+    }
+
+    static String quote(String value) {
+        final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
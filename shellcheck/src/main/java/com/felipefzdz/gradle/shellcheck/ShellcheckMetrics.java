@@ -0,0 +1,106 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Where the time of a {@link Shellcheck} task goes, phase by phase, along with how much work it did.
+ */
+public class ShellcheckMetrics {
+
+    private final long start = System.nanoTime();
+    // Reports are rendered at the same time, each one timed as its own phase
+    private final Map<String, Long> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private boolean incremental;
+    private int files;
+    private int shards;
+    private long outputBytes;
+    private long peakOutputBytes;
+    private int violations;
+
+    public interface Phase<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Runs a phase of the task, adding its duration to the one of the phase with the same name, if any.
+     */
+    public <T> T time(String phase, Phase<T> work) throws IOException {
+        final long phaseStart = System.nanoTime();
+        try {
+            return work.run();
+        } finally {
+            phases.merge(phase, System.nanoTime() - phaseStart, Long::sum);
+        }
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setFiles(int files) {
+        this.files = files;
+    }
+
+    public void setViolations(int violations) {
+        this.violations = violations;
+    }
+
+    /**
+     * Records a shard of scripts Shellcheck checked, along with the size of its output.
+     */
+    public void addShard(long bytes) {
+        shards++;
+        outputBytes += bytes;
+        peakOutputBytes = Math.max(peakOutputBytes, bytes);
+    }
+
+    public void write(String taskPath, File destination) throws IOException {
+        Files.createDirectories(destination.getParentFile().toPath());
+        try (Writer writer = Files.newBufferedWriter(destination.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("{\"task\":" + ShellcheckJsonWriter.quote(taskPath)
+                    + ",\"incremental\":" + incremental
+                    + ",\"files\":" + files
+                    + ",\"shards\":" + shards
+                    + ",\"outputBytes\":" + outputBytes
+                    + ",\"peakOutputBytes\":" + peakOutputBytes
+                    + ",\"violations\":" + violations
+                    + ",\"totalMillis\":" + millis(System.nanoTime() - start)
+                    + ",\"phasesMillis\":{");
+            synchronized (phases) {
+                writer.write(phases.entrySet().stream()
+                        .map(phase -> ShellcheckJsonWriter.quote(phase.getKey()) + ":" + millis(phase.getValue()))
+                        .collect(joining(",")));
+            }
+            writer.write("}}\n");
+        }
+    }
+
+    /**
+     * A one line summary such as {@code Shellcheck checked 12 files as 3 shards in 840ms (install 2ms, discovery 10ms, ...), 15 KB of output}.
+     */
+    public String describe() {
+        synchronized (phases) {
+            return "Shellcheck checked " + files + " files as " + shards + " shards in " + millis(System.nanoTime() - start) + "ms ("
+                    + phases.entrySet().stream().map(phase -> phase.getKey() + " " + millis(phase.getValue()) + "ms").collect(joining(", "))
+                    + "), " + outputBytes / 1024 + " KB of output";
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,94 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.io.output.TeeOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * Streams the {@code json1} output of a Shellcheck process to a file and, at the same time, to a parser validating it
+ * as it is produced, so the output is only read once.
+ */
+class ShellcheckOutputTee {
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    interface OutputWork<T> {
+        T run(OutputStream output) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Runs some work writing to the returned stream, and waits for the parser to be done with everything it wrote.
+     */
+    static <T> Result<T> run(File outputFile, Consumer<ShellcheckViolation> consumer, OutputWork<T> work) throws IOException, InterruptedException {
+        try (OutputStream file = new BufferedOutputStream(new FileOutputStream(outputFile));
+             PipedInputStream parserInput = new PipedInputStream(PIPE_SIZE);
+             PipedOutputStream parserOutput = new PipedOutputStream(parserInput)) {
+            final FutureTask<Void> parser = new FutureTask<>(() -> {
+                try {
+                    ShellcheckJsonParser.parse(new InputStreamReader(parserInput, StandardCharsets.UTF_8), consumer);
+                } finally {
+                    // Keep consuming so the process output is never blocked on a parser that gave up
+                    drain(parserInput);
+                }
+                return null;
+            });
+            final Thread parserThread = new Thread(parser, "shellcheck-output-parser");
+            parserThread.setDaemon(true);
+            parserThread.start();
+
+            final T value;
+            try (TeeOutputStream output = new TeeOutputStream(file, parserOutput)) {
+                value = work.run(output);
+            }
+            try {
+                parser.get();
+                return new Result<>(value, null);
+            } catch (ExecutionException e) {
+                return new Result<>(value, e.getCause());
+            }
+        }
+    }
+
+    private static void drain(InputStream input) {
+        try {
+            IOUtils.copy(input, NullOutputStream.NULL_OUTPUT_STREAM);
+        } catch (IOException ignored) {
+            // Nothing left to read
+        }
+    }
+
+    static class Result<T> {
+        private final T value;
+        private final Throwable parseFailure;
+
+        private Result(T value, Throwable parseFailure) {
+            this.value = value;
+            this.parseFailure = parseFailure;
+        }
+
+        T getValue() {
+            return value;
+        }
+
+        /**
+         * Why the output did not parse, or null if it did.
+         */
+        Throwable getParseFailure() {
+            return parseFailure;
+        }
+    }
+}
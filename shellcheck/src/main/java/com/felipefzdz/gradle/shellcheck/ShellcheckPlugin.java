@@ -2,58 +2,210 @@ package com.felipefzdz.gradle.shellcheck;
 
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.type.ArtifactTypeDefinition;
+import org.gradle.api.attributes.Usage;
+import org.gradle.api.execution.TaskExecutionGraph;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.ProjectLayout;
 import org.gradle.api.file.RegularFile;
-import org.gradle.api.internal.ConventionMapping;
-import org.gradle.api.internal.IConventionAware;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
 import org.gradle.api.plugins.ReportingBasePlugin;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.provider.ProviderFactory;
 import org.gradle.api.reporting.ReportingExtension;
+import org.gradle.api.resources.TextResource;
+import org.gradle.api.tasks.TaskProvider;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import static org.gradle.api.internal.lambdas.SerializableLambdas.action;
 
 public class ShellcheckPlugin implements Plugin<Project> {
 
+    /**
+     * The Gradle property capping the number of Shellcheck processes running at once across the whole build.
+     */
+    public static final String MAX_CONCURRENT_PROCESSES_PROPERTY = "shellcheck.maxConcurrentProcesses";
+
+    /**
+     * The task of the root project merging the results of every Shellcheck task of the build.
+     */
+    public static final String AGGREGATE_REPORT_TASK_NAME = "shellcheckAggregateReport";
+
+    /**
+     * The consumable configuration publishing the results directory of every Shellcheck task of a project.
+     */
+    public static final String RESULTS_ELEMENTS_CONFIGURATION = "shellcheckResultsElements";
+
+    /**
+     * The configuration of the root project resolving the results of every project applying the plugin.
+     */
+    public static final String AGGREGATION_CONFIGURATION = "shellcheckAggregation";
+
+    /**
+     * The usage of the variant holding the results of the Shellcheck tasks of a project.
+     */
+    public static final String RESULTS_USAGE = "shellcheck-results";
+
+    private static final String DOCKER_WARM_UP_PROPERTY = "shellcheck.dockerWarmUp";
+    private static final String PLUGIN_ID = "com.felipefzdz.gradle.shellcheck";
+    private static final List<String> DEFAULT_REPORTS = Arrays.asList("html", "xml", "txt");
+
     protected ShellcheckExtension extension;
 
     public void apply(Project project) {
         project.getPluginManager().apply(ReportingBasePlugin.class);
-        extension = (ShellcheckExtension) project.getExtensions().create("shellcheck", ShellcheckExtension.class, project);
+        extension = project.getExtensions().create("shellcheck", ShellcheckExtension.class);
+        final Provider<ShellcheckBuildService> buildService = project.getGradle().getSharedServices()
+                .registerIfAbsent("shellcheck", ShellcheckBuildService.class, spec -> {
+                    spec.getParameters().getRootDir().set(project.getRootDir());
+                    spec.getParameters().getMaxConcurrentProcesses().set(project.getProviders()
+                            .gradleProperty(MAX_CONCURRENT_PROCESSES_PROPERTY)
+                            .map(Integer::parseInt)
+                            .orElse(Runtime.getRuntime().availableProcessors()));
+                });
         project.getTasks().register("shellcheck", Shellcheck.class);
-        project.getTasks().withType(Shellcheck.class).configureEach(task -> configureTask((Shellcheck) task, project));
+        project.getTasks().withType(Shellcheck.class).configureEach(task -> configureTask(task, project, buildService));
+        final ExtraPropertiesExtension gradleProperties = project.getGradle().getExtensions().getExtraProperties();
+        // Once per build, whichever project applies the plugin first
+        if (!gradleProperties.has(DOCKER_WARM_UP_PROPERTY)) {
+            gradleProperties.set(DOCKER_WARM_UP_PROPERTY, true);
+            project.getGradle().getTaskGraph().whenReady(ShellcheckPlugin::warmUpDockerImages);
+        }
+        configureResultsElements(project);
+        if (project == project.getRootProject()) {
+            final Configuration aggregation = configureAggregation(project);
+            project.getTasks().register(AGGREGATE_REPORT_TASK_NAME, ShellcheckAggregateReport.class, task -> configureAggregateReport(task, project, aggregation));
+        }
+    }
+
+    /**
+     * Publishes the results of the Shellcheck tasks of the project, built by the tasks themselves when resolved.
+     */
+    private static void configureResultsElements(Project project) {
+        final Configuration resultsElements = project.getConfigurations().create(RESULTS_ELEMENTS_CONFIGURATION, configuration -> {
+            configuration.setDescription("The results of the Shellcheck tasks of this project.");
+            configuration.setVisible(false);
+            configuration.setCanBeConsumed(true);
+            configuration.setCanBeResolved(false);
+            configuration.getAttributes().attribute(Usage.USAGE_ATTRIBUTE, project.getObjects().named(Usage.class, RESULTS_USAGE));
+        });
+        // Every task is known once the project is evaluated, and published through its provider so none is realized
+        project.afterEvaluate(evaluated -> evaluated.getTasks().withType(Shellcheck.class).getNames().forEach(name -> {
+            final TaskProvider<Shellcheck> task = evaluated.getTasks().named(name, Shellcheck.class);
+            resultsElements.getOutgoing().artifact(task.flatMap(Shellcheck::getResultsDir), artifact -> {
+                artifact.setType(ArtifactTypeDefinition.DIRECTORY_TYPE);
+                artifact.builtBy(task);
+            });
+        }));
     }
 
-    private void configureTask(Shellcheck task, Project project) {
-        configureTaskConventionMapping(task, project);
-        configureReportsConventionMapping(task, project);
+    /**
+     * Resolves the results published by every project of the build applying the plugin.
+     */
+    private static Configuration configureAggregation(Project project) {
+        final Configuration aggregation = project.getConfigurations().create(AGGREGATION_CONFIGURATION, configuration -> {
+            configuration.setDescription("The results of the Shellcheck tasks of every project, merged by the aggregate report.");
+            configuration.setVisible(false);
+            configuration.setCanBeConsumed(false);
+            configuration.setCanBeResolved(true);
+            configuration.getAttributes().attribute(Usage.USAGE_ATTRIBUTE, project.getObjects().named(Usage.class, RESULTS_USAGE));
+        });
+        for (Project each : project.getAllprojects()) {
+            each.getPluginManager().withPlugin(PLUGIN_ID, plugin -> aggregation.getDependencies()
+                    .add(project.getDependencies().project(Collections.singletonMap("path", each.getPath()))));
+        }
+        return aggregation;
     }
 
-    private void configureTaskConventionMapping(Shellcheck task, Project project) {
-        ConventionMapping taskMapping = task.getConventionMapping();
-        taskMapping.map("sources", (Callable<FileCollection>) () -> extension.getSources());
-        taskMapping.map("ignoreFailures", (Callable<Boolean>) () -> extension.isIgnoreFailures());
-        taskMapping.map("showViolations", (Callable<Boolean>) () -> extension.isShowViolations());
-        taskMapping.map("useDocker", (Callable<Boolean>) () -> extension.isUseDocker());
-        taskMapping.map("shellcheckVersion", (Callable<String>) () -> extension.getShellcheckVersion());
-        taskMapping.map("severity", (Callable<String>) () -> extension.getSeverity());
-        taskMapping.map("shellcheckBinary", (Callable<String>) () -> extension.getShellcheckBinary());
-        taskMapping.map("installer", (Callable<String>) () -> extension.getInstaller());
-        taskMapping.map("projectDir", (Callable<File>) project::getProjectDir);
-        final ConventionMapping extensionMapping = conventionMappingOf(extension);
-        extensionMapping.map("reportsDir", (Callable<File>) () -> project.getExtensions().getByType(ReportingExtension.class).file("shellcheck"));
+    /**
+     * Pulls the images of the scheduled tasks using Docker while the build goes on, instead of when they run.
+     */
+    private static void warmUpDockerImages(TaskExecutionGraph graph) {
+        graph.getAllTasks().stream()
+                .filter(task -> task instanceof Shellcheck)
+                .map(task -> (Shellcheck) task)
+                .filter(task -> task.getUseDocker().get())
+                .forEach(task -> ShellcheckDockerImages.warmUp(ShellcheckDockerImages.image(task.getShellcheckVersion().get())));
     }
 
-    private void configureReportsConventionMapping(Shellcheck task, Project project) {
+    private void configureAggregateReport(ShellcheckAggregateReport task, Project project, Configuration aggregation) {
+        final ProviderFactory providers = project.getProviders();
+        final ProjectLayout layout = project.getLayout();
+        final ReportingExtension reporting = project.getExtensions().getByType(ReportingExtension.class);
+        task.setDescription("Merges the results of every Shellcheck task of the build into a single report.");
+        task.getShellcheckVersion().convention(providers.provider(() -> extension.getShellcheckVersion()));
+        task.getRootDir().convention(layout.getProjectDirectory());
+        task.getFragmentsDir().convention(layout.getBuildDirectory().dir("shellcheck/" + task.getName()));
+        final Provider<File> reportsDir = providers.provider(() ->
+                new File(extension.getReportsDir() != null ? extension.getReportsDir() : reporting.file("shellcheck"), "aggregate"));
+        task.getXmlFile().convention(layout.file(reportsDir.map(dir -> new File(dir, "shellcheck.xml"))));
+        task.getHtmlFile().convention(layout.file(reportsDir.map(dir -> new File(dir, "shellcheck.html"))));
+        task.getSarifFile().convention(layout.file(reportsDir.map(dir -> new File(dir, "shellcheck.sarif"))));
+        task.getResults().from(aggregation);
+        task.getHtmlStylesheet().convention(layout.file(providers.provider(() -> {
+            final TextResource stylesheet = project.getTasks().named("shellcheck", Shellcheck.class).get().getReports().getHtml().getStylesheet();
+            return stylesheet != null ? stylesheet.asFile() : null;
+        })));
+    }
+
+    private void configureTask(Shellcheck task, Project project, Provider<ShellcheckBuildService> buildService) {
+        configureTaskConventions(task, project);
+        configureReportsConventions(task, project);
+        task.getBuildService().set(buildService);
+        task.usesService(buildService);
+    }
+
+    private void configureTaskConventions(Shellcheck task, Project project) {
+        final ProviderFactory providers = project.getProviders();
+        final ProjectLayout layout = project.getLayout();
+        task.getSources().from((Callable<FileCollection>) () -> extension.getSources());
+        task.getIgnoreFailuresProperty().convention(providers.provider(() -> extension.isIgnoreFailures()));
+        task.getShowViolations().convention(providers.provider(() -> extension.isShowViolations()));
+        task.getUseDocker().convention(providers.provider(() -> extension.isUseDocker()));
+        task.getReuseDockerContainer().convention(providers.provider(() -> extension.isReuseDockerContainer()));
+        task.getShellcheckVersion().convention(providers.provider(() -> extension.getShellcheckVersion()));
+        task.getSeverity().convention(providers.provider(() -> extension.getSeverity()));
+        task.getShellcheckBinary().convention(providers.provider(() -> extension.getShellcheckBinary()));
+        task.getInstaller().convention(providers.provider(() -> extension.getInstaller()));
+        task.getProbedShellcheckVersion().convention(providers.of(ShellcheckVersionSource.class, spec -> {
+            spec.getParameters().getUseDocker().set(task.getUseDocker());
+            spec.getParameters().getShellcheckVersion().set(task.getShellcheckVersion());
+            spec.getParameters().getShellcheckBinary().set(task.getShellcheckBinary());
+            spec.getParameters().getInstaller().set(task.getInstaller());
+        }));
+        task.getShellcheckDistributionBaseUrl().convention(providers.provider(() -> extension.getShellcheckDistributionBaseUrl()));
+        task.getShellcheckDistributionChecksum().convention(providers.provider(() -> extension.getShellcheckDistributionChecksum()));
+        task.getShardSize().convention(providers.provider(() -> extension.getShardSize()));
+        task.getMaxWorkers().convention(project.getGradle().getStartParameter().getMaxWorkerCount());
+        task.getContinuous().convention(project.getGradle().getStartParameter().isContinuous());
+        task.getMaxErrors().convention(providers.provider(() -> extension.getMaxErrors()));
+        task.getMaxWarnings().convention(providers.provider(() -> extension.getMaxWarnings()));
+        task.getOnlyChangedSince().convention(providers.provider(() -> extension.getOnlyChangedSince()));
+        task.getExternalSources().convention(providers.provider(() -> extension.isExternalSources()));
+        task.getFileExtensions().convention(providers.provider(() -> extension.getFileExtensions()));
+        task.getIncludeRules().convention(providers.provider(() -> extension.getIncludeRules()));
+        task.getExcludeRules().convention(providers.provider(() -> extension.getExcludeRules()));
+        task.getProjectDir().convention(layout.getProjectDirectory());
+        task.getGradleUserHomeDir().convention(layout.dir(providers.provider(() -> project.getGradle().getGradleUserHomeDir())));
+        task.getResultsDir().convention(layout.getBuildDirectory().dir("shellcheck/" + task.getName()));
+        task.getAnalysisCacheDir().convention(layout.getBuildDirectory().dir("shellcheck-analysis"));
+        task.getMetricsFile().convention(layout.getBuildDirectory().file("shellcheck-metrics/" + task.getName() + ".json"));
+    }
+
+    private void configureReportsConventions(Shellcheck task, Project project) {
         ProjectLayout layout = project.getLayout();
         ProviderFactory providers = project.getProviders();
-        Provider<RegularFile> reportsDir = layout.file(providers.provider(() -> extension.getReportsDir()));
+        ReportingExtension reporting = project.getExtensions().getByType(ReportingExtension.class);
+        Provider<RegularFile> reportsDir = layout.file(providers.provider(() ->
+                extension.getReportsDir() != null ? extension.getReportsDir() : reporting.file("shellcheck")));
         task.getReports().all(action(report -> {
-            report.getRequired().convention(true);
+            report.getRequired().convention(DEFAULT_REPORTS.contains(report.getName()));
             report.getOutputLocation().convention(
                 layout.getProjectDirectory().file(providers.provider(() -> {
                     String reportFileName = "shellcheck." + report.getName();
@@ -62,8 +214,4 @@ public class ShellcheckPlugin implements Plugin<Project> {
             );
         }));
     }
-
-    protected static ConventionMapping conventionMappingOf(Object object) {
-        return ((IConventionAware) object).getConventionMapping();
-    }
 }
@@ -0,0 +1,45 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * What the reports of a {@link Shellcheck} task are rendered from. It is never modified, so every report can be
+ * rendered from it at the same time.
+ */
+public class ShellcheckReportModel {
+
+    private final ShellcheckResult result;
+    private final String shellcheckVersion;
+    private final File projectDir;
+    private final byte[] htmlStylesheet;
+
+    public ShellcheckReportModel(ShellcheckResult result, String shellcheckVersion, File projectDir, byte[] htmlStylesheet) {
+        this.result = result;
+        this.shellcheckVersion = shellcheckVersion;
+        this.projectDir = projectDir;
+        this.htmlStylesheet = Arrays.copyOf(htmlStylesheet, htmlStylesheet.length);
+    }
+
+    /**
+     * The violations to report, whose files are relative to the {@link #getProjectDir() project directory}.
+     */
+    public ShellcheckResult getResult() {
+        return result;
+    }
+
+    public String getShellcheckVersion() {
+        return shellcheckVersion;
+    }
+
+    public File getProjectDir() {
+        return projectDir;
+    }
+
+    /**
+     * The XSLT stylesheet turning the checkstyle XML report into the HTML one.
+     */
+    public byte[] getHtmlStylesheet() {
+        return Arrays.copyOf(htmlStylesheet, htmlStylesheet.length);
+    }
+}
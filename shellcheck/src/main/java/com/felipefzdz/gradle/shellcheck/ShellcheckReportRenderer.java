@@ -0,0 +1,20 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Renders one of the {@link ShellcheckReports} of a task, found in {@link ShellcheckReports#getRenderers()} under the
+ * name of the report.
+ * <p>
+ * The renderers of the enabled reports run at the same time, each one only reading the immutable model it is given.
+ * They are kept by the task, so they are serializable to be stored in the configuration cache.
+ */
+public interface ShellcheckReportRenderer extends Serializable {
+
+    /**
+     * Writes the report to the given file, whose directory already exists.
+     */
+    void render(ShellcheckReportModel model, File destination) throws IOException;
+}
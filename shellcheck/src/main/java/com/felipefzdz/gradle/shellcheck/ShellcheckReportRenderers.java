@@ -0,0 +1,259 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.GradleException;
+import org.gradle.api.reporting.SingleFileReport;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The built-in {@link ShellcheckReportRenderer renderers}, by report name, and how the enabled reports of a task are
+ * rendered with the renderers of its {@link ShellcheckReports}, which may override the built-in ones.
+ * <p>
+ * The reports are rendered at the same time on a pool shared by every task, with a thread per available processor and
+ * at least two, so the HTML report, which takes the longest, overlaps with the others instead of adding to them.
+ */
+public class ShellcheckReportRenderers {
+
+    private static final int PIPE_SIZE = 64 * 1024;
+    private static final ThreadPoolExecutor RENDERING;
+
+    static {
+        final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        RENDERING = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "shellcheck-report-rendering");
+            thread.setDaemon(true);
+            return thread;
+        });
+        RENDERING.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * What every renderer of a task is when it cannot be told apart from another one with the same class, such as a Java
+     * lambda. Such a renderer may have changed since the reports were rendered, so they are never reused.
+     */
+    static final String UNIDENTIFIED = "unidentified";
+
+    /**
+     * The renderers of the reports of every {@link Shellcheck} task, unless the task replaces them.
+     */
+    public static Map<String, ShellcheckReportRenderer> defaults() {
+        final Map<String, ShellcheckReportRenderer> renderers = new LinkedHashMap<>();
+        for (BuiltIn renderer : BuiltIn.values()) {
+            renderers.put(renderer.name().toLowerCase(Locale.ROOT), renderer);
+        }
+        return renderers;
+    }
+
+    /**
+     * The implementation of every renderer, by report name: the built-in one, or the class of the renderer along with
+     * the digest of its bytecode, so changing a renderer renders the reports again. {@link #UNIDENTIFIED} otherwise.
+     */
+    static Map<String, String> implementations(Map<String, ShellcheckReportRenderer> renderers) {
+        final Map<String, String> implementations = new TreeMap<>();
+        renderers.forEach((name, renderer) -> implementations.put(name, implementationOf(renderer)));
+        return implementations;
+    }
+
+    private static String implementationOf(ShellcheckReportRenderer renderer) {
+        if (renderer instanceof BuiltIn) {
+            return "built-in " + ((BuiltIn) renderer).name().toLowerCase(Locale.ROOT);
+        }
+        final Class<?> type = renderer.getClass();
+        if (type.isSynthetic() || type.getClassLoader() == null) {
+            return UNIDENTIFIED;
+        }
+        try (InputStream bytecode = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            return bytecode == null ? UNIDENTIFIED : type.getName() + "@" + Hashes.sha256Hex(IOUtils.toByteArray(bytecode));
+        } catch (IOException e) {
+            return UNIDENTIFIED;
+        }
+    }
+
+    /**
+     * Renders every enabled report and waits for all of them, recording how long each one took as a phase named after it.
+     */
+    public static void renderAll(ShellcheckReportModel model, ShellcheckReports reports, ShellcheckMetrics metrics) {
+        final Map<String, ShellcheckReportRenderer> renderers = reports.getRenderers().get();
+        for (String name : renderers.keySet()) {
+            if (reports.findByName(name) == null) {
+                throw new GradleException("No Shellcheck report named " + name + ", renderers only replace those of the reports "
+                        + reports.getNames());
+            }
+        }
+        final List<Future<?>> rendering = new ArrayList<>();
+        for (SingleFileReport report : reports.getEnabled()) {
+            final ShellcheckReportRenderer renderer = renderers.get(report.getName());
+            if (renderer == null) {
+                throw new GradleException("No renderer for the Shellcheck " + report.getName() + " report");
+            }
+            final File destination = report.getOutputLocation().get().getAsFile();
+            rendering.add(RENDERING.submit(() -> {
+                try {
+                    metrics.time(report.getName() + "Report", () -> {
+                        Files.createDirectories(destination.getParentFile().toPath());
+                        renderer.render(model, destination);
+                        return null;
+                    });
+                } catch (IOException e) {
+                    throw new GradleException("Error while handling Shellcheck " + report.getName() + " report", e);
+                }
+                return null;
+            }));
+        }
+        await(rendering);
+    }
+
+    private static void await(List<Future<?>> rendering) {
+        RuntimeException failure = null;
+        // Every report is done, or failed, before the task goes on
+        for (Future<?> report : rendering) {
+            try {
+                report.get();
+            } catch (ExecutionException e) {
+                final RuntimeException cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : new GradleException("Error while rendering Shellcheck reports", e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rendering.forEach(it -> it.cancel(true));
+                throw new GradleException("Interrupted while rendering Shellcheck reports", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void renderXml(ShellcheckReportModel model, File destination) throws IOException {
+        write(destination, writer -> ShellcheckCheckstyleWriter.write(model.getResult(), writer));
+    }
+
+    private static void renderTxt(ShellcheckReportModel model, File destination) throws IOException {
+        write(destination, writer -> ShellcheckTtyWriter.write(model.getResult(), model.getProjectDir(), writer));
+    }
+
+    private static void renderSarif(ShellcheckReportModel model, File destination) throws IOException {
+        write(destination, writer -> ShellcheckSarifWriter.write(model.getResult(), model.getShellcheckVersion(), model.getProjectDir(), writer));
+    }
+
+    private static void renderJson(ShellcheckReportModel model, File destination) throws IOException {
+        write(destination, writer -> ShellcheckJsonWriter.write(model.getResult(), writer));
+    }
+
+    /**
+     * Transforms the checkstyle XML as it is written, streamed through a pipe rather than read back from the XML report,
+     * so both are rendered at once, and the whole XML is never held in memory.
+     */
+    private static void renderHtml(ShellcheckReportModel model, File destination) throws IOException {
+        final PipedInputStream xmlInput = new PipedInputStream(PIPE_SIZE);
+        final PipedOutputStream xmlOutput = new PipedOutputStream(xmlInput);
+        final FutureTask<Void> xml = new FutureTask<>(() -> {
+            try (Writer writer = new OutputStreamWriter(xmlOutput, StandardCharsets.UTF_8)) {
+                ShellcheckCheckstyleWriter.write(model.getResult(), writer);
+            }
+            return null;
+        });
+        final Thread xmlThread = new Thread(xml, "shellcheck-html-report-xml");
+        xmlThread.setDaemon(true);
+        xmlThread.start();
+        try {
+            ShellcheckStylesheets.compile(model.getHtmlStylesheet()).newTransformer()
+                    .transform(new StreamSource(xmlInput), new StreamResult(destination));
+            xml.get();
+        } catch (TransformerException | ExecutionException e) {
+            throw new GradleException("Error while handling Shellcheck html report", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while rendering the Shellcheck html report", e);
+        } finally {
+            // Unblocks the writer if the transformation stopped before reading all of it, the writer closes its own side
+            xmlInput.close();
+        }
+    }
+
+    /**
+     * The built-in renderers, kept as constants so they are told apart from the ones replacing them.
+     */
+    private enum BuiltIn implements ShellcheckReportRenderer {
+        XML {
+            @Override
+            public void render(ShellcheckReportModel model, File destination) throws IOException {
+                renderXml(model, destination);
+            }
+        },
+        TXT {
+            @Override
+            public void render(ShellcheckReportModel model, File destination) throws IOException {
+                renderTxt(model, destination);
+            }
+        },
+        HTML {
+            @Override
+            public void render(ShellcheckReportModel model, File destination) throws IOException {
+                renderHtml(model, destination);
+            }
+        },
+        SARIF {
+            @Override
+            public void render(ShellcheckReportModel model, File destination) throws IOException {
+                renderSarif(model, destination);
+            }
+        },
+        JSON {
+            @Override
+            public void render(ShellcheckReportModel model, File destination) throws IOException {
+                renderJson(model, destination);
+            }
+        }
+    }
+
+    /**
+     * The stylesheet of the HTML report, the one it is configured with or the default one.
+     */
+    static byte[] htmlStylesheet(ShellcheckReports reports) throws IOException {
+        if (reports.getHtml().getStylesheet() != null) {
+            return Files.readAllBytes(reports.getHtml().getStylesheet().asFile().toPath());
+        }
+        try (InputStream input = ShellcheckReportRenderers.class.getClassLoader().getResourceAsStream(ShellcheckInvoker.SHELLCHECK_NOFRAMES_SORTED_XSL)) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+
+    private interface ReportContent {
+        void write(Writer writer) throws IOException;
+    }
+
+    private static void write(File destination, ReportContent content) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(destination.toPath(), StandardCharsets.UTF_8)) {
+            content.write(writer);
+        }
+    }
+}
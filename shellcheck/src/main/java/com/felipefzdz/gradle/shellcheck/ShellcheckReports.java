@@ -1,10 +1,15 @@
 package com.felipefzdz.gradle.shellcheck;
 
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.reporting.CustomizableHtmlReport;
 import org.gradle.api.reporting.ReportContainer;
 import org.gradle.api.reporting.SingleFileReport;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 
+import java.util.Map;
+
 /**
  * The reporting configuration for the {@link Shellcheck} task.
  */
@@ -14,7 +19,7 @@ public interface ShellcheckReports extends ReportContainer<SingleFileReport> {
      * <p>
      * This report IS enabled by default.
      * <p>
-     * Enabling this report will also cause the XML report to be generated, as the HTML is derived from the XML.
+     * The HTML is derived from the checkstyle XML, built in memory, so the XML report does not need to be enabled.
      *
      * @return The shellcheck HTML report
      */
@@ -39,4 +44,43 @@ public interface ShellcheckReports extends ReportContainer<SingleFileReport> {
      */
     @Internal
     SingleFileReport getTxt();
+
+    /**
+     * The shellcheck SARIF report, with the metadata of every rule found, for code scanning tools.
+     * <p>
+     * This report is NOT enabled by default.
+     *
+     * @return The shellcheck SARIF report
+     */
+    @Internal
+    SingleFileReport getSarif();
+
+    /**
+     * The shellcheck JSON report, following the format of {@code shellcheck -f json1}.
+     * <p>
+     * This report is NOT enabled by default.
+     *
+     * @return The shellcheck JSON report
+     */
+    @Internal
+    SingleFileReport getJson();
+
+    /**
+     * The renderer of every report, by report name, the built-in ones by default. Putting another one under the name of
+     * a report overrides how that report is rendered, for this task only. Only the reports above can be overridden, a
+     * renderer under any other name fails the task.
+     *
+     * @return The renderers of the reports
+     */
+    @Internal
+    MapProperty<String, ShellcheckReportRenderer> getRenderers();
+
+    /**
+     * What each of the {@link #getRenderers() renderers} is, so overriding one renders the reports again instead of
+     * reusing the ones rendered before.
+     *
+     * @return The implementation of every renderer, by report name
+     */
+    @Input
+    Provider<Map<String, String>> getRendererImplementations();
 }
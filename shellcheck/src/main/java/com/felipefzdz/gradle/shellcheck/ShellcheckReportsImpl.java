@@ -2,7 +2,10 @@ package com.felipefzdz.gradle.shellcheck;
 
 import org.gradle.api.Task;
 import org.gradle.api.internal.CollectionCallbackActionDecorator;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.plugins.quality.CheckstyleReports;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.reporting.CustomizableHtmlReport;
 import org.gradle.api.reporting.SingleFileReport;
 import org.gradle.api.reporting.internal.CustomizableHtmlReportImpl;
@@ -10,16 +13,23 @@ import org.gradle.api.reporting.internal.TaskGeneratedSingleFileReport;
 import org.gradle.api.reporting.internal.TaskReportContainer;
 
 import javax.inject.Inject;
+import java.util.Map;
 
 public class ShellcheckReportsImpl extends TaskReportContainer<SingleFileReport> implements ShellcheckReports {
 
+    private final MapProperty<String, ShellcheckReportRenderer> renderers;
+
     @Inject
-    public ShellcheckReportsImpl(Task task, CollectionCallbackActionDecorator callbackActionDecorator) {
+    public ShellcheckReportsImpl(Task task, CollectionCallbackActionDecorator callbackActionDecorator, ObjectFactory objects) {
         super(SingleFileReport.class, task, callbackActionDecorator);
+        this.renderers = objects.mapProperty(String.class, ShellcheckReportRenderer.class);
+        this.renderers.putAll(ShellcheckReportRenderers.defaults());
 
         add(CustomizableHtmlReportImpl.class, "html", task);
         add(TaskGeneratedSingleFileReport.class, "xml", task);
         add(TaskGeneratedSingleFileReport.class, "txt", task);
+        add(TaskGeneratedSingleFileReport.class, "sarif", task);
+        add(TaskGeneratedSingleFileReport.class, "json", task);
     }
 
     @Override
@@ -36,4 +46,24 @@ public class ShellcheckReportsImpl extends TaskReportContainer<SingleFileReport>
     public SingleFileReport getTxt() {
         return getByName("txt");
     }
+
+    @Override
+    public SingleFileReport getSarif() {
+        return getByName("sarif");
+    }
+
+    @Override
+    public SingleFileReport getJson() {
+        return getByName("json");
+    }
+
+    @Override
+    public MapProperty<String, ShellcheckReportRenderer> getRenderers() {
+        return renderers;
+    }
+
+    @Override
+    public Provider<Map<String, String>> getRendererImplementations() {
+        return renderers.map(ShellcheckReportRenderers::implementations);
+    }
 }
@@ -0,0 +1,80 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The violations found by a Shellcheck run, grouped by file in the order Shellcheck reported them.
+ */
+public class ShellcheckResult {
+
+    private final Map<String, List<ShellcheckViolation>> violationsByFile;
+    private final String truncation;
+
+    private ShellcheckResult(Map<String, List<ShellcheckViolation>> violationsByFile, String truncation) {
+        this.violationsByFile = violationsByFile;
+        this.truncation = truncation;
+    }
+
+    public Map<String, List<ShellcheckViolation>> getViolationsByFile() {
+        return violationsByFile;
+    }
+
+    public boolean isEmpty() {
+        return violationsByFile.isEmpty();
+    }
+
+    /**
+     * Whether Shellcheck was stopped before checking every script, so these are only some of the violations.
+     */
+    public boolean isTruncated() {
+        return truncation != null;
+    }
+
+    /**
+     * Why Shellcheck was stopped before checking every script, or null if it was not.
+     */
+    public String getTruncation() {
+        return truncation;
+    }
+
+    public ShellcheckResult truncated(String reason) {
+        return new ShellcheckResult(violationsByFile, reason);
+    }
+
+    /**
+     * The violations of the given files only.
+     */
+    public ShellcheckResult only(Set<String> files) {
+        final Builder builder = builder();
+        violationsByFile.forEach((file, violations) -> {
+            if (files.contains(file)) {
+                violations.forEach(builder::add);
+            }
+        });
+        return builder.build().truncated(truncation);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final Map<String, List<ShellcheckViolation>> violationsByFile = new LinkedHashMap<>();
+
+        public Builder add(ShellcheckViolation violation) {
+            violationsByFile.computeIfAbsent(violation.getFile(), file -> new ArrayList<>()).add(violation);
+            return this;
+        }
+
+        public ShellcheckResult build() {
+            final Map<String, List<ShellcheckViolation>> copy = new LinkedHashMap<>();
+            violationsByFile.forEach((file, violations) -> copy.put(file, Collections.unmodifiableList(new ArrayList<>(violations))));
+            return new ShellcheckResult(Collections.unmodifiableMap(copy), null);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Keeps the violations of every checked script in its own file, so an incremental run only needs to update the
+ * entries of the scripts that changed.
+ * <p>
+ * Scripts without violations have no entry.
+ * <p>
+ * Every entry is also written to a single snapshot along with the generation of the store it matches, so the next run
+ * reads one file instead of every entry. The generation is removed before any entry changes, and written again once the
+ * snapshot matches the entries, so a snapshot is never read after a run stopped halfway.
+ * <p>
+ * The entries of the last few stores used are also kept in the memory of the Gradle daemon, along with their generation,
+ * so the next build of a {@code --continuous} session does not even read the snapshot. They are only used while the
+ * generation on disk is still the same, and softly referenced, so the daemon drops them when it runs low on memory.
+ */
+public class ShellcheckResultStore {
+
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String INCOMPLETE_MARKER = "incomplete";
+    private static final String GENERATION = "generation";
+    private static final String ORIGIN = "origin.properties";
+    private static final String SNAPSHOT = "snapshot";
+    private static final int MAX_SNAPSHOTS_IN_MEMORY = 16;
+    private static final Map<String, SoftReference<Snapshot>> SNAPSHOTS = Collections.synchronizedMap(
+            new LinkedHashMap<String, SoftReference<Snapshot>>(MAX_SNAPSHOTS_IN_MEMORY, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SoftReference<Snapshot>> eldest) {
+                    return size() > MAX_SNAPSHOTS_IN_MEMORY;
+                }
+            });
+
+    private final File directory;
+    private final Set<String> updatedFiles = new HashSet<>();
+    private Map<String, List<ShellcheckViolation>> entries;
+    private boolean modified;
+
+    public ShellcheckResultStore(File directory) {
+        this.directory = directory;
+    }
+
+    public void clear() throws IOException {
+        FileUtils.deleteDirectory(directory);
+        Files.createDirectories(directory.toPath());
+        entries = new TreeMap<>();
+        modified = true;
+    }
+
+    /**
+     * Records that some scripts were not checked, so the store cannot be trusted by an incremental run until it is cleared.
+     */
+    public void markIncomplete() throws IOException {
+        Files.createDirectories(directory.toPath());
+        FileUtils.touch(new File(directory, INCOMPLETE_MARKER));
+    }
+
+    public boolean isComplete() {
+        return !new File(directory, INCOMPLETE_MARKER).exists();
+    }
+
+    /**
+     * Records the task these results belong to and the directory of its project, relative to the store so it does not
+     * change with where the project is checked out, for the {@link ShellcheckAggregateReport} consuming them.
+     */
+    public void writeOrigin(String taskPath, File projectDir) throws IOException {
+        final String content = "taskPath=" + taskPath + "\nprojectDir=" + ShellcheckInvoker.relativePath(directory, projectDir) + "\n";
+        final File origin = new File(directory, ORIGIN);
+        // Left untouched when it did not change, so the aggregate report does not see the results as changed
+        if (!origin.isFile() || !content.equals(new String(Files.readAllBytes(origin.toPath()), StandardCharsets.UTF_8))) {
+            Files.createDirectories(directory.toPath());
+            Files.write(origin.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The path of the task these results belong to, or null if it was never recorded.
+     */
+    public String getTaskPath() throws IOException {
+        return origin().getProperty("taskPath");
+    }
+
+    /**
+     * The directory of the project of the task these results belong to, which their scripts are relative to, or null
+     * if it was never recorded.
+     */
+    public File getProjectDir() throws IOException {
+        final String projectDir = origin().getProperty("projectDir");
+        return projectDir != null ? new File(directory, projectDir).toPath().normalize().toFile() : null;
+    }
+
+    private Properties origin() throws IOException {
+        final Properties origin = new Properties();
+        final File file = new File(directory, ORIGIN);
+        if (file.isFile()) {
+            try (InputStream input = Files.newInputStream(file.toPath())) {
+                origin.load(input);
+            }
+        }
+        return origin;
+    }
+
+    public void remove(String file) throws IOException {
+        updatedFiles.add(file);
+        if (entries().remove(file) != null) {
+            modify();
+            Files.deleteIfExists(entryOf(file).toPath());
+        }
+    }
+
+    public void put(String file, Collection<ShellcheckViolation> violations) throws IOException {
+        if (violations.isEmpty()) {
+            remove(file);
+            return;
+        }
+        updatedFiles.add(file);
+        final List<ShellcheckViolation> entry = Collections.unmodifiableList(new ArrayList<>(violations));
+        if (entry.equals(entries().get(file))) {
+            return;
+        }
+        entries().put(file, entry);
+        modify();
+        Files.createDirectories(directory.toPath());
+        try (Writer writer = Files.newBufferedWriter(entryOf(file).toPath(), StandardCharsets.UTF_8)) {
+            ShellcheckJsonWriter.write(violations, writer);
+        }
+    }
+
+    /**
+     * Whether the violations of any script changed since this store was opened.
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * The scripts whose entry was put or removed since this store was opened, whether their violations changed or not.
+     */
+    public Set<String> getUpdatedFiles() {
+        return Collections.unmodifiableSet(updatedFiles);
+    }
+
+    /**
+     * Merges every entry of the store, ordered by file.
+     */
+    public ShellcheckResult load() throws IOException {
+        final Map<String, List<ShellcheckViolation>> current = entries();
+        if (modified || generation().isEmpty()) {
+            Files.createDirectories(directory.toPath());
+            final List<ShellcheckViolation> all = new ArrayList<>();
+            current.values().forEach(all::addAll);
+            try (Writer writer = Files.newBufferedWriter(new File(directory, SNAPSHOT).toPath(), StandardCharsets.UTF_8)) {
+                ShellcheckJsonWriter.write(all, writer);
+            }
+            Files.write(new File(directory, GENERATION).toPath(), UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        remember(current);
+        final ShellcheckResult.Builder builder = ShellcheckResult.builder();
+        current.values().forEach(violations -> violations.forEach(builder::add));
+        return builder.build();
+    }
+
+    public interface EntryConsumer {
+        void accept(List<ShellcheckViolation> violations) throws IOException;
+    }
+
+    /**
+     * Reads the entries from disk one at a time, always in the same order, without loading the whole store.
+     */
+    public void forEachEntry(EntryConsumer consumer) throws IOException {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            final List<ShellcheckViolation> violations = new ArrayList<>();
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                ShellcheckJsonParser.parse(reader, violations::add);
+            }
+            consumer.accept(violations);
+        }
+    }
+
+    private Map<String, List<ShellcheckViolation>> entries() throws IOException {
+        if (entries == null) {
+            final String generation = generation();
+            final SoftReference<Snapshot> remembered = SNAPSHOTS.get(key());
+            final Snapshot inMemory = remembered != null ? remembered.get() : null;
+            final File snapshot = new File(directory, SNAPSHOT);
+            if (!generation.isEmpty() && inMemory != null && inMemory.generation.equals(generation)) {
+                entries = new TreeMap<>(inMemory.entries);
+            } else {
+                entries = !generation.isEmpty() && snapshot.isFile() ? readSnapshot(snapshot) : read();
+            }
+        }
+        return entries;
+    }
+
+    private void remember(Map<String, List<ShellcheckViolation>> current) throws IOException {
+        // The lists are never changed once stored, only the map holding them
+        SNAPSHOTS.put(key(), new SoftReference<>(new Snapshot(generation(), new TreeMap<>(current))));
+    }
+
+    private String key() {
+        return directory.getAbsolutePath();
+    }
+
+    private static Map<String, List<ShellcheckViolation>> readSnapshot(File snapshot) throws IOException {
+        final Map<String, List<ShellcheckViolation>> read = new TreeMap<>();
+        try (Reader reader = Files.newBufferedReader(snapshot.toPath(), StandardCharsets.UTF_8)) {
+            ShellcheckJsonParser.parse(reader, violation -> read.computeIfAbsent(violation.getFile(), file -> new ArrayList<>()).add(violation));
+        }
+        read.replaceAll((file, violations) -> Collections.unmodifiableList(violations));
+        return read;
+    }
+
+    /**
+     * Invalidates the snapshot before the first entry changes, until {@link #load()} writes it again.
+     */
+    private void modify() throws IOException {
+        if (!modified) {
+            Files.deleteIfExists(new File(directory, GENERATION).toPath());
+            modified = true;
+        }
+    }
+
+    private Map<String, List<ShellcheckViolation>> read() throws IOException {
+        final Map<String, List<ShellcheckViolation>> read = new TreeMap<>();
+        forEachEntry(violations -> {
+            if (!violations.isEmpty()) {
+                read.put(violations.get(0).getFile(), Collections.unmodifiableList(violations));
+            }
+        });
+        return read;
+    }
+
+    private String generation() throws IOException {
+        final File generation = new File(directory, GENERATION);
+        return generation.isFile() ? new String(Files.readAllBytes(generation.toPath()), StandardCharsets.UTF_8) : "";
+    }
+
+    private static class Snapshot {
+        private final String generation;
+        private final Map<String, List<ShellcheckViolation>> entries;
+
+        private Snapshot(String generation, Map<String, List<ShellcheckViolation>> entries) {
+            this.generation = generation;
+            this.entries = entries;
+        }
+    }
+
+    private File entryOf(String file) {
+        return new File(directory, Hashes.sha256Hex(file) + ENTRY_SUFFIX);
+    }
+}
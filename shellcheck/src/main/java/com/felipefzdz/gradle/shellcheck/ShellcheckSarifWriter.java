@@ -0,0 +1,129 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.felipefzdz.gradle.shellcheck.ShellcheckJsonWriter.quote;
+
+/**
+ * Writes a {@link ShellcheckResult} as a SARIF 2.1.0 log, the format read by code scanning tools.
+ * <p>
+ * Only the metadata of the rules is gathered up front, every result is written as soon as it is reached.
+ */
+public class ShellcheckSarifWriter {
+
+    private static final String SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+    private static final String WIKI_URL = "https://www.shellcheck.net/wiki/";
+    private static final String SOURCE_ROOT = "%SRCROOT%";
+
+    public static void write(ShellcheckResult result, String shellcheckVersion, File baseDir, Writer writer) throws IOException {
+        final Map<String, Integer> ruleIndexes = new LinkedHashMap<>();
+        final List<ShellcheckViolation> rules = new ArrayList<>();
+        for (List<ShellcheckViolation> violations : result.getViolationsByFile().values()) {
+            for (ShellcheckViolation violation : violations) {
+                if (!ruleIndexes.containsKey(violation.getRule())) {
+                    ruleIndexes.put(violation.getRule(), ruleIndexes.size());
+                    rules.add(violation);
+                }
+            }
+        }
+        writeStart(shellcheckVersion, rules, writer);
+        boolean first = true;
+        for (List<ShellcheckViolation> violations : result.getViolationsByFile().values()) {
+            for (ShellcheckViolation violation : violations) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writeResult(violation, ruleIndexes.get(violation.getRule()), baseDir, writer);
+            }
+        }
+        writeEnd(result.getTruncation(), writer);
+    }
+
+    /**
+     * Writes the log up to the opening of its results, describing every rule from the first of its violations.
+     * <p>
+     * The directory the results are relative to is left out, so the log does not change with where the project is
+     * checked out, and code scanning tools resolve them against the root of the repository.
+     */
+    static void writeStart(String shellcheckVersion, List<ShellcheckViolation> rules, Writer writer) throws IOException {
+        writer.write("{\"$schema\":" + quote(SCHEMA) + ",\"version\":\"2.1.0\",\"runs\":[{");
+        writer.write("\"tool\":{\"driver\":{\"name\":\"ShellCheck\",\"informationUri\":\"https://www.shellcheck.net\""
+                + ",\"version\":" + quote(shellcheckVersion.startsWith("v") ? shellcheckVersion.substring(1) : shellcheckVersion)
+                + ",\"rules\":[");
+        for (int i = 0; i < rules.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeRule(rules.get(i), writer);
+        }
+        writer.write("]}},\"originalUriBaseIds\":{\"" + SOURCE_ROOT + "\":{\"description\":{\"text\":\"The directory of the checked project\"}}}");
+        writer.write(",\"results\":[");
+    }
+
+    /**
+     * Closes the results opened by {@link #writeStart}, noting why Shellcheck stopped early if it did.
+     */
+    static void writeEnd(String truncation, Writer writer) throws IOException {
+        writer.write("]");
+        if (truncation != null) {
+            writer.write(",\"invocations\":[{\"executionSuccessful\":false,\"toolExecutionNotifications\":[{\"level\":\"warning\",\"message\":{\"text\":"
+                    + quote("Shellcheck stopped early after finding " + truncation + ", these are only some of the violations.")
+                    + "}}]}]");
+        }
+        writer.write("}]}\n");
+    }
+
+    private static void writeRule(ShellcheckViolation violation, Writer writer) throws IOException {
+        final String helpUri = WIKI_URL + violation.getRule();
+        writer.write("\n{\"id\":" + quote(violation.getRule())
+                + ",\"name\":" + quote(violation.getRule())
+                + ",\"shortDescription\":{\"text\":" + quote(violation.getMessage()) + "}"
+                + ",\"helpUri\":" + quote(helpUri)
+                + ",\"help\":{\"text\":" + quote("See " + helpUri) + "}"
+                + ",\"defaultConfiguration\":{\"level\":" + quote(sarifLevel(violation)) + "}"
+                + ",\"properties\":{\"tags\":[\"shellcheck\"," + quote(violation.getLevel()) + "]}}");
+    }
+
+    /**
+     * Writes a result, pointing at its rule by index unless {@code ruleIndex} is null.
+     */
+    static void writeResult(ShellcheckViolation violation, Integer ruleIndex, File baseDir, Writer writer) throws IOException {
+        writer.write("\n{\"ruleId\":" + quote(violation.getRule())
+                + (ruleIndex != null ? ",\"ruleIndex\":" + ruleIndex : "")
+                + ",\"level\":" + quote(sarifLevel(violation))
+                + ",\"message\":{\"text\":" + quote(violation.getMessage()) + "}"
+                + ",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":" + artifactLocation(violation.getFile(), baseDir)
+                + ",\"region\":{\"startLine\":" + violation.getLine()
+                + ",\"startColumn\":" + violation.getColumn()
+                + ",\"endLine\":" + violation.getEndLine()
+                + ",\"endColumn\":" + violation.getEndColumn()
+                + "}}}]}");
+    }
+
+    private static String artifactLocation(String file, File baseDir) {
+        final URI uri = (new File(file).isAbsolute() ? new File(file) : new File(baseDir, file)).getAbsoluteFile().toPath().toUri();
+        final URI relative = baseDir.getAbsoluteFile().toPath().toUri().relativize(uri);
+        return relative.isAbsolute() ?
+                "{\"uri\":" + quote(uri.toString()) + "}" :
+                "{\"uri\":" + quote(relative.toString()) + ",\"uriBaseId\":\"" + SOURCE_ROOT + "\"}";
+    }
+
+    private static String sarifLevel(ShellcheckViolation violation) {
+        switch (violation.getLevel()) {
+            case "error":
+                return "error";
+            case "warning":
+                return "warning";
+            default:
+                return "note";
+        }
+    }
+}
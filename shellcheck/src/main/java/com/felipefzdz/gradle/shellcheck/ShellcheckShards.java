@@ -0,0 +1,158 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Splits the scripts to check into shards, each one checked by its own Shellcheck process.
+ * <p>
+ * Unless it runs with {@code --external-sources}, Shellcheck only follows the scripts sourced by the ones it checks when
+ * they are checked by the same process, so scripts sourcing one another, directly or not, are first {@link #groups grouped}
+ * and a group is never split across shards. Otherwise the violations of a script would depend on the shard it landed in.
+ * <p>
+ * Shellcheck takes roughly as long as the script it checks is big, so by default the shards are balanced by size: the
+ * biggest groups are handed out first, each to the lightest shard so far. The shards are returned from the heaviest to
+ * the lightest, and since workers pick the next shard as soon as they are done with one, the light shards fill the gaps
+ * left by the heavy ones instead of the build waiting for a heavy shard started last.
+ * <p>
+ * The paths of the scripts of a shard never exceed {@code maxArgumentsLength} characters, so its command line stays
+ * within {@code ARG_MAX}, unless a single group is longer than that.
+ */
+public class ShellcheckShards {
+
+    // What a script costs on top of its size, so many tiny scripts are not all handed to the same shard
+    private static final long SCRIPT_COST = 1024;
+
+    /**
+     * The scripts connected by what they source, in the order they were found. Sourced files which are not among the
+     * given scripts only connect the scripts sourcing them.
+     */
+    public static List<List<File>> groups(List<File> scripts, Function<File, Collection<File>> sourcesOf) {
+        final Map<File, File> parents = new HashMap<>();
+        scripts.forEach(script -> parents.put(script.getAbsoluteFile(), script.getAbsoluteFile()));
+        for (File script : scripts) {
+            for (File sourced : sourcesOf.apply(script)) {
+                union(parents, script.getAbsoluteFile(), sourced.getAbsoluteFile());
+            }
+        }
+        final Map<File, List<File>> groups = new LinkedHashMap<>();
+        for (File script : scripts) {
+            groups.computeIfAbsent(find(parents, script.getAbsoluteFile()), ignored -> new ArrayList<>()).add(script);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Up to {@code shards} shards of about the same size, more if their arguments would be too long otherwise.
+     */
+    public static List<List<File>> bySize(List<List<File>> groups, int shards, int maxArgumentsLength) {
+        final List<Group> biggestFirst = groups.stream().map(Group::new).collect(toList());
+        biggestFirst.sort(Comparator.comparingLong((Group group) -> group.cost).reversed());
+
+        final List<Shard> all = new ArrayList<>();
+        final PriorityQueue<Shard> lightestFirst = new PriorityQueue<>(Comparator.comparingLong(shard -> shard.cost));
+        for (int i = 0; i < Math.max(1, Math.min(shards, groups.size())); i++) {
+            final Shard shard = new Shard();
+            all.add(shard);
+            lightestFirst.add(shard);
+        }
+        for (Group group : biggestFirst) {
+            Shard shard = lightestFirst.poll();
+            if (!shard.scripts.isEmpty() && shard.argumentsLength + group.argumentsLength > maxArgumentsLength) {
+                // Its command line is full, so it no longer takes any script
+                shard = new Shard();
+                all.add(shard);
+            }
+            shard.add(group);
+            lightestFirst.add(shard);
+        }
+        return all.stream()
+                .filter(shard -> !shard.scripts.isEmpty())
+                .sorted(Comparator.comparingLong((Shard shard) -> shard.cost).reversed())
+                .map(shard -> shard.scripts)
+                .collect(toList());
+    }
+
+    /**
+     * Shards of about {@code shardSize} scripts, in the order they were found, fewer if their arguments would be too long
+     * otherwise. A group of more scripts than that gets a shard of its own.
+     */
+    public static List<List<File>> byCount(List<List<File>> groups, int shardSize, int maxArgumentsLength) {
+        final List<List<File>> shards = new ArrayList<>();
+        List<File> shard = new ArrayList<>();
+        int shardLength = 0;
+        for (List<File> group : groups) {
+            final int length = argumentsLength(group);
+            if (!shard.isEmpty() && (shard.size() + group.size() > shardSize || shardLength + length > maxArgumentsLength)) {
+                shards.add(shard);
+                shard = new ArrayList<>();
+                shardLength = 0;
+            }
+            shard.addAll(group);
+            shardLength += length;
+        }
+        shards.add(shard);
+        return shards;
+    }
+
+    private static int argumentsLength(List<File> group) {
+        return group.stream().mapToInt(script -> script.getAbsolutePath().length() + 1).sum();
+    }
+
+    private static File find(Map<File, File> parents, File file) {
+        File root = parents.computeIfAbsent(file, ignored -> file);
+        while (!root.equals(parents.get(root))) {
+            root = parents.get(root);
+        }
+        // Points every file on the way straight to the root, so the next lookups are short
+        File current = file;
+        while (!current.equals(root)) {
+            final File next = parents.get(current);
+            parents.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<File, File> parents, File first, File second) {
+        final File firstRoot = find(parents, first);
+        final File secondRoot = find(parents, second);
+        if (!firstRoot.equals(secondRoot)) {
+            parents.put(secondRoot, firstRoot);
+        }
+    }
+
+    private static class Group {
+        private final List<File> scripts;
+        private final long cost;
+        private final int argumentsLength;
+
+        private Group(List<File> scripts) {
+            this.scripts = scripts;
+            this.cost = scripts.stream().mapToLong(script -> script.length() + SCRIPT_COST).sum();
+            this.argumentsLength = argumentsLength(scripts);
+        }
+    }
+
+    private static class Shard {
+        private final List<File> scripts = new ArrayList<>();
+        private long cost;
+        private int argumentsLength;
+
+        private void add(Group group) {
+            scripts.addAll(group.scripts);
+            cost += group.cost;
+            argumentsLength += group.argumentsLength;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Discovers the shell scripts to check below a set of source roots.
+ * <p>
+ * Files are matched by extension. Files without an extension are matched when their shebang points to a shell
+ * supported by Shellcheck, reading only the first bytes of the file. So are executable files whose extension is not
+ * configured, such as {@code deploy.v2}, while a file like {@code notes.txt} is left alone unless it is meant to be run.
+ */
+public class ShellcheckSourceFinder {
+
+    public static final List<String> DEFAULT_EXTENSIONS = Arrays.asList("sh", "bash", "ksh", "bashrc", "bash_profile", "bash_login", "bash_logout");
+
+    private static final Set<String> SHELLS = new HashSet<>(Arrays.asList("sh", "bash", "dash", "ksh", "busybox"));
+    private static final int SHEBANG_BYTES = 128;
+
+    public static List<File> find(Collection<File> roots, Collection<String> extensions) {
+        final Set<String> normalizedExtensions = normalize(extensions);
+        // Splitting every root into its top level entries lets big roots be walked by several threads
+        return roots.stream()
+                .flatMap(root -> topLevelEntries(root.toPath()))
+                .collect(toList())
+                .parallelStream()
+                .flatMap(entry -> walk(entry, normalizedExtensions))
+                .distinct()
+                .sorted()
+                .map(Path::toFile)
+                .collect(toList());
+    }
+
+    /**
+     * Whether a single file would have been discovered by {@link #find(Collection, Collection)}.
+     */
+    public static boolean matches(File file, Collection<String> extensions) {
+        if (!file.isFile()) {
+            return false;
+        }
+        final String extension = extensionOf(file.getName());
+        return extension != null && normalize(extensions).contains(extension) || isScript(file.toPath());
+    }
+
+    private static Set<String> normalize(Collection<String> extensions) {
+        return extensions.stream()
+                .map(extension -> extension.startsWith(".") ? extension.substring(1) : extension)
+                .collect(toSet());
+    }
+
+    private static Stream<Path> topLevelEntries(Path root) {
+        if (!Files.isDirectory(root)) {
+            return Stream.of(root);
+        }
+        try (Stream<Path> entries = Files.list(root)) {
+            return entries.collect(toList()).stream();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while looking for shell scripts in " + root, e);
+        }
+    }
+
+    private static Stream<Path> walk(Path root, Set<String> extensions) {
+        if (!Files.exists(root)) {
+            return Stream.empty();
+        }
+        final List<Path> matches = new ArrayList<>();
+        final List<Path> unmatched = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        final String extension = extensionOf(file.getFileName().toString());
+                        if (extension != null && extensions.contains(extension)) {
+                            matches.add(file);
+                        } else {
+                            unmatched.add(file);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while looking for shell scripts in " + root, e);
+        }
+        return Stream.concat(matches.stream(), unmatched.parallelStream().filter(ShellcheckSourceFinder::isScript));
+    }
+
+    private static String extensionOf(String fileName) {
+        final int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        // Dotfiles such as .bashrc are matched by the part after the leading dot
+        return fileName.substring(dot + 1);
+    }
+
+    /**
+     * Whether a file not matched by its extension is a shell script anyway.
+     */
+    private static boolean isScript(Path file) {
+        final boolean hasExtension = extensionOf(file.getFileName().toString()) != null;
+        return (!hasExtension || Files.isExecutable(file)) && hasShellShebang(file);
+    }
+
+    static boolean hasShellShebang(Path file) {
+        final byte[] head = new byte[SHEBANG_BYTES];
+        int read = 0;
+        try (InputStream input = Files.newInputStream(file)) {
+            int n;
+            while (read < head.length && (n = input.read(head, read, head.length - read)) > 0) {
+                read += n;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        if (read < 2 || head[0] != '#' || head[1] != '!') {
+            return false;
+        }
+        String shebang = new String(head, 2, read - 2, StandardCharsets.UTF_8);
+        final int newline = shebang.indexOf('\n');
+        if (newline >= 0) {
+            shebang = shebang.substring(0, newline);
+        }
+        final String[] tokens = shebang.trim().split("\\s+");
+        if (tokens.length == 0 || tokens[0].isEmpty()) {
+            return false;
+        }
+        String interpreter = basename(tokens[0]);
+        if ("env".equals(interpreter)) {
+            interpreter = Arrays.stream(tokens).skip(1).filter(token -> !token.startsWith("-")).findFirst().map(ShellcheckSourceFinder::basename).orElse("");
+        }
+        return SHELLS.contains(interpreter);
+    }
+
+    private static String basename(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
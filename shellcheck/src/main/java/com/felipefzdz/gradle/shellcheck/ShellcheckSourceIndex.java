@@ -0,0 +1,147 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Which scripts every script sources, with {@code source}, {@code .} or a {@code # shellcheck source=} directive, kept
+ * next to the results so an incremental run also checks again the scripts sourcing the ones that changed.
+ * <p>
+ * Scripts are named like in the results, relative to the project directory. A sourced path is resolved against both the
+ * directory of the script and the project directory, the working directory of Shellcheck, and both are recorded, so a
+ * change to either of them is noticed. Paths built from variables are not followed.
+ */
+public class ShellcheckSourceIndex {
+
+    private static final String INDEX = "sources.tsv";
+    private static final Pattern SOURCE = Pattern.compile(
+            "(?:^|[;&|{(]|\\bthen|\\bdo|\\belse)\\s*(?:source|\\.)\\s+(\"[^\"]+\"|'[^']+'|[^\\s;&|)]+)");
+    private static final Pattern DIRECTIVE = Pattern.compile("#\\s*shellcheck\\s.*\\bsource=(\\S+)");
+
+    private final File file;
+    private final File projectDir;
+    private final Map<String, Set<String>> sources = new TreeMap<>();
+
+    private ShellcheckSourceIndex(File directory, File projectDir) {
+        this.file = new File(directory, INDEX);
+        this.projectDir = projectDir;
+    }
+
+    /**
+     * The index saved in the given directory, if any.
+     */
+    public static ShellcheckSourceIndex load(File directory, File projectDir) throws IOException {
+        final ShellcheckSourceIndex index = new ShellcheckSourceIndex(directory, projectDir);
+        if (index.file.isFile()) {
+            for (String line : Files.readAllLines(index.file.toPath(), StandardCharsets.UTF_8)) {
+                final String[] paths = line.split("\t");
+                final Set<String> sourced = new TreeSet<>();
+                for (int i = 1; i < paths.length; i++) {
+                    sourced.add(paths[i]);
+                }
+                index.sources.put(paths[0], sourced);
+            }
+        }
+        return index;
+    }
+
+    public void clear() {
+        sources.clear();
+    }
+
+    /**
+     * Reads again what the given script sources.
+     */
+    public void update(File script) throws IOException {
+        final String path = ShellcheckInvoker.relativePath(projectDir, script);
+        final Set<String> sourced = new TreeSet<>();
+        // Any byte is a valid character in this charset, and only ASCII matters to find the directives
+        for (String line : Files.readAllLines(script.toPath(), StandardCharsets.ISO_8859_1)) {
+            collect(SOURCE.matcher(line), script, sourced);
+            collect(DIRECTIVE.matcher(line), script, sourced);
+        }
+        if (sourced.isEmpty()) {
+            sources.remove(path);
+        } else {
+            sources.put(path, sourced);
+        }
+    }
+
+    public void remove(String path) {
+        sources.remove(path);
+    }
+
+    /**
+     * The scripts sourcing any of the given ones, directly or through other scripts, not including the given ones.
+     */
+    public Set<String> dependentsOf(Collection<String> paths) {
+        final Map<String, Set<String>> dependents = new TreeMap<>();
+        sources.forEach((script, sourced) -> sourced.forEach(path -> dependents.computeIfAbsent(path, ignored -> new TreeSet<>()).add(script)));
+        final Set<String> found = new TreeSet<>();
+        final Deque<String> pending = new ArrayDeque<>(paths);
+        while (!pending.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(pending.pop(), new TreeSet<>())) {
+                if (!paths.contains(dependent) && found.add(dependent)) {
+                    pending.push(dependent);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * The scripts sourced by the given one, directly or through other scripts, not including the given one.
+     */
+    public Set<String> sourcesOf(String path) {
+        final Set<String> found = new TreeSet<>();
+        final Deque<String> pending = new ArrayDeque<>();
+        pending.push(path);
+        while (!pending.isEmpty()) {
+            for (String sourced : sources.getOrDefault(pending.pop(), new TreeSet<>())) {
+                if (!sourced.equals(path) && found.add(sourced)) {
+                    pending.push(sourced);
+                }
+            }
+        }
+        return found;
+    }
+
+    public void save() throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        final List<String> lines = new ArrayList<>();
+        sources.forEach((script, sourced) -> lines.add(script + "\t" + String.join("\t", sourced)));
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    private void collect(Matcher matcher, File script, Set<String> sourced) {
+        while (matcher.find()) {
+            final String target = unquote(matcher.group(1));
+            if (target.contains("$") || target.contains("`") || target.equals("/dev/null")) {
+                continue;
+            }
+            if (new File(target).isAbsolute()) {
+                sourced.add(ShellcheckInvoker.relativePath(projectDir, new File(target)));
+            } else {
+                sourced.add(ShellcheckInvoker.relativePath(projectDir, new File(script.getAbsoluteFile().getParentFile(), target)));
+                sourced.add(ShellcheckInvoker.relativePath(projectDir, new File(projectDir, target)));
+            }
+        }
+    }
+
+    private static String unquote(String target) {
+        return target.length() > 1 && (target.startsWith("\"") || target.startsWith("'")) ? target.substring(1, target.length() - 1) : target;
+    }
+}
@@ -0,0 +1,35 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled XSLT stylesheets, kept for the lifetime of the daemon and keyed by the hash of their content.
+ * <p>
+ * Compiling a stylesheet is expensive, while creating a {@link javax.xml.transform.Transformer} out of compiled
+ * {@link Templates} is cheap, so every {@link Shellcheck} task using the same stylesheet only pays for it once.
+ */
+public class ShellcheckStylesheets {
+
+    private static final int MAX_CACHED = 32;
+    private static final Map<String, Templates> TEMPLATES = new ConcurrentHashMap<>();
+
+    public static Templates compile(byte[] stylesheet) throws TransformerConfigurationException {
+        final String key = Hashes.sha256Hex(stylesheet);
+        final Templates cached = TEMPLATES.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final Templates templates = TransformerFactory.newInstance().newTemplates(new StreamSource(new ByteArrayInputStream(stylesheet)));
+        if (TEMPLATES.size() >= MAX_CACHED) {
+            TEMPLATES.clear();
+        }
+        TEMPLATES.put(key, templates);
+        return templates;
+    }
+}
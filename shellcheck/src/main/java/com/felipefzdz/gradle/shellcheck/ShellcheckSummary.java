@@ -0,0 +1,96 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Counts violations by severity, file and rule in a single pass, keeping one counter per distinct key.
+ */
+public class ShellcheckSummary implements Consumer<ShellcheckViolation> {
+
+    private static final List<String> LEVELS = Arrays.asList("error", "warning", "info", "style");
+    private static final int MAX_LISTED = 10;
+
+    private final Map<String, Integer> bySeverity = new LinkedHashMap<>();
+    private final Map<String, Integer> byFile = new HashMap<>();
+    private final Map<String, Integer> byRule = new HashMap<>();
+    private int violations;
+
+    public ShellcheckSummary() {
+        LEVELS.forEach(level -> bySeverity.put(level, 0));
+    }
+
+    public static ShellcheckSummary of(ShellcheckResult result) {
+        final ShellcheckSummary summary = new ShellcheckSummary();
+        result.getViolationsByFile().values().forEach(violations -> violations.forEach(summary));
+        return summary;
+    }
+
+    @Override
+    public void accept(ShellcheckViolation violation) {
+        violations++;
+        bySeverity.merge(violation.getLevel(), 1, Integer::sum);
+        byFile.merge(violation.getFile(), 1, Integer::sum);
+        byRule.merge(violation.getRule(), 1, Integer::sum);
+    }
+
+    public int getViolations() {
+        return violations;
+    }
+
+    public int getFilesWithViolations() {
+        return byFile.size();
+    }
+
+    public Map<String, Integer> getBySeverity() {
+        return bySeverity;
+    }
+
+    public Map<String, Integer> getByFile() {
+        return byFile;
+    }
+
+    public Map<String, Integer> getByRule() {
+        return byRule;
+    }
+
+    /**
+     * The severities with violations, from the most to the least severe, such as {@code error=1, warning=8}.
+     */
+    public String describeBySeverity() {
+        return bySeverity.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(joining(", "));
+    }
+
+    /**
+     * The rules with the most violations, such as {@code SC2086=16, SC2154=8}.
+     */
+    public String describeByRule() {
+        return describeTop(byRule);
+    }
+
+    /**
+     * The files with the most violations.
+     */
+    public String describeByFile() {
+        return describeTop(byFile);
+    }
+
+    private static String describeTop(Map<String, Integer> counts) {
+        final String top = counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_LISTED)
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(joining(", "));
+        return counts.size() > MAX_LISTED ? top + ", ..." : top;
+    }
+}
@@ -0,0 +1,108 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link ShellcheckResult} mimicking the plain (uncolored) output of {@code shellcheck -f tty}.
+ */
+public class ShellcheckTtyWriter {
+
+    private static final String WIKI_URL = "https://www.shellcheck.net/wiki/";
+    private static final int WIKI_LINK_COUNT = 3;
+    private static final int WIKI_MESSAGE_LIMIT = 40;
+
+    public static String format(ShellcheckResult result, File baseDir) {
+        final StringWriter writer = new StringWriter();
+        try {
+            write(result, baseDir, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString().trim();
+    }
+
+    public static void write(ShellcheckResult result, File baseDir, Writer writer) throws IOException {
+        for (Map.Entry<String, List<ShellcheckViolation>> file : result.getViolationsByFile().entrySet()) {
+            writeFile(file.getKey(), file.getValue(), readLines(baseDir, file.getKey()), writer);
+        }
+        writeWikiLinks(result, writer);
+        if (result.isTruncated()) {
+            writer.write("\nShellcheck stopped early after finding " + result.getTruncation() + ", these are only some of the violations.\n");
+        }
+    }
+
+    private static void writeFile(String fileName, List<ShellcheckViolation> violations, List<String> lines, Writer writer) throws IOException {
+        int index = 0;
+        while (index < violations.size()) {
+            final int lineNumber = violations.get(index).getLine();
+            writer.write("\nIn " + fileName + " line " + lineNumber + ":\n");
+            writer.write((lineNumber >= 1 && lineNumber <= lines.size() ? lines.get(lineNumber - 1) : "") + "\n");
+            while (index < violations.size() && violations.get(index).getLine() == lineNumber) {
+                writer.write(indent(violations.get(index)) + "\n");
+                index++;
+            }
+            writer.write("\n");
+        }
+    }
+
+    private static String indent(ShellcheckViolation violation) {
+        final StringBuilder indented = new StringBuilder();
+        for (int i = 1; i < violation.getColumn(); i++) {
+            indented.append(' ');
+        }
+        return indented.append(arrow(violation)).append(' ').append(violation.getRule()).append(": ").append(violation.getMessage()).toString();
+    }
+
+    private static String arrow(ShellcheckViolation violation) {
+        final int delta = violation.getEndColumn() - violation.getColumn();
+        if (violation.getLine() != violation.getEndLine() || delta <= 2 || delta >= 32) {
+            return "^--";
+        }
+        final StringBuilder arrow = new StringBuilder("^");
+        for (int i = 0; i < delta - 2; i++) {
+            arrow.append('-');
+        }
+        return arrow.append('^').toString();
+    }
+
+    private static void writeWikiLinks(ShellcheckResult result, Writer writer) throws IOException {
+        final Map<Integer, String> messagesByCode = new LinkedHashMap<>();
+        for (String level : new String[]{"error", "warning", "info", "style"}) {
+            result.getViolationsByFile().values().forEach(violations -> violations.stream()
+                    .filter(violation -> level.equals(violation.getLevel()))
+                    .forEach(violation -> messagesByCode.putIfAbsent(violation.getCode(), violation.getMessage())));
+        }
+        if (messagesByCode.isEmpty()) {
+            return;
+        }
+        writer.write("\nFor more information:\n");
+        final List<Map.Entry<Integer, String>> links = new ArrayList<>(messagesByCode.entrySet());
+        for (Map.Entry<Integer, String> link : links.subList(0, Math.min(WIKI_LINK_COUNT, links.size()))) {
+            writer.write("  " + WIKI_URL + "SC" + link.getKey() + " -- " + shorten(link.getValue()) + "\n");
+        }
+    }
+
+    private static String shorten(String message) {
+        return message.length() < WIKI_MESSAGE_LIMIT ? message : message.substring(0, WIKI_MESSAGE_LIMIT - 3) + "...";
+    }
+
+    private static List<String> readLines(File baseDir, String fileName) {
+        final File file = new File(fileName).isAbsolute() ? new File(fileName) : new File(baseDir, fileName);
+        try {
+            return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+}
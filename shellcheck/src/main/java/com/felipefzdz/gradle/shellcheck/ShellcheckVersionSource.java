@@ -0,0 +1,71 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Identifies the Shellcheck actually run by a {@link Shellcheck} task, so its cache key neither depends on where the
+ * binary is installed nor is shared by different versions installed at the same path.
+ * <p>
+ * It is the digest of the Docker image, or its name while it is not pulled yet, as found by {@link ShellcheckDockerImages}
+ * without pulling it, the version of a downloaded release, verified by its checksum, or the version reported by the local
+ * binary. A binary still to be installed is identified by the configured version, which the installer checks. The
+ * version of a binary is probed once per daemon, until the binary, looked up on the {@code PATH} when it is only a name,
+ * changes.
+ */
+public abstract class ShellcheckVersionSource implements ValueSource<String, ShellcheckVersionSource.Parameters> {
+
+    private static final Logger LOGGER = Logging.getLogger(ShellcheckVersionSource.class);
+    private static final Map<String, String> PROBED = new ConcurrentHashMap<>();
+
+    public interface Parameters extends ValueSourceParameters {
+        Property<Boolean> getUseDocker();
+
+        Property<String> getShellcheckVersion();
+
+        Property<String> getShellcheckBinary();
+
+        Property<String> getInstaller();
+    }
+
+    @Override
+    public String obtain() {
+        final Parameters parameters = getParameters();
+        final String version = parameters.getShellcheckVersion().get();
+        if (parameters.getUseDocker().get()) {
+            final String image = ShellcheckDockerImages.image(version);
+            // Resolved while the inputs are fingerprinted, so it never waits for the pull going on in the background. The
+            // image name stands for an image not pulled yet, or when Docker is not reachable
+            return ShellcheckDockerImages.localDigest(image).orElse(image);
+        }
+        if (ShellcheckInstaller.DOWNLOAD.equals(parameters.getInstaller().get())) {
+            return ShellcheckInstaller.normalize(version);
+        }
+        final String binary = parameters.getShellcheckBinary().get();
+        // A binary that cannot be found on its own is probed every time rather than remembered under a name
+        final Optional<String> key = ShellcheckInstaller.binaryFingerprint(binary).map(fingerprint -> "binary:" + fingerprint);
+        final String cached = key.map(PROBED::get).orElse(null);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            final Optional<String> probed = ShellcheckInstaller.probeVersion(binary, null, LOGGER);
+            if (!probed.isPresent()) {
+                // Not installed yet, the installer makes sure the configured version is the one installed
+                return ShellcheckInstaller.normalize(version);
+            }
+            key.ifPresent(it -> PROBED.put(it, probed.get()));
+            return probed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ShellcheckInstaller.normalize(version);
+        }
+    }
+}
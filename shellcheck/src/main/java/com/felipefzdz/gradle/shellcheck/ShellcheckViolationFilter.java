@@ -0,0 +1,61 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.gradle.api.GradleException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Decides which of the violations found by Shellcheck, which always checks at the {@code style} level, are reported:
+ * those at least as severe as {@code severity}, of the included rules if any, and not of the excluded ones.
+ * <p>
+ * Since the full results are kept, changing any of them only renders the reports again instead of running Shellcheck.
+ */
+public class ShellcheckViolationFilter {
+
+    private static final List<String> LEVELS = Arrays.asList("error", "warning", "info", "style");
+
+    private final int severity;
+    private final Set<Integer> includedRules;
+    private final Set<Integer> excludedRules;
+
+    public ShellcheckViolationFilter(String severity, Collection<String> includedRules, Collection<String> excludedRules) {
+        this.severity = LEVELS.indexOf(severity.toLowerCase(Locale.ROOT));
+        if (this.severity < 0) {
+            throw new GradleException("Unknown Shellcheck severity " + severity + ", expected one of " + LEVELS);
+        }
+        this.includedRules = codes(includedRules);
+        this.excludedRules = codes(excludedRules);
+    }
+
+    public boolean accepts(ShellcheckViolation violation) {
+        final int level = LEVELS.indexOf(violation.getLevel());
+        return level >= 0 && level <= severity
+                && (includedRules.isEmpty() || includedRules.contains(violation.getCode()))
+                && !excludedRules.contains(violation.getCode());
+    }
+
+    public List<ShellcheckViolation> apply(Collection<ShellcheckViolation> violations) {
+        return violations.stream().filter(this::accepts).collect(toList());
+    }
+
+    private static Set<Integer> codes(Collection<String> rules) {
+        final Set<Integer> codes = new HashSet<>();
+        for (String rule : rules) {
+            // Rules are given as Shellcheck names them, such as SC2086, or by their code alone
+            final String code = rule.trim().toUpperCase(Locale.ROOT).startsWith("SC") ? rule.trim().substring(2) : rule.trim();
+            try {
+                codes.add(Integer.parseInt(code));
+            } catch (NumberFormatException e) {
+                throw new GradleException("Unknown Shellcheck rule " + rule + ", expected a rule such as SC2086");
+            }
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,96 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.felipefzdz.gradle.shellcheck.Shell.run;
+
+/**
+ * Counts the violations found by the Shellcheck processes of a task as they are reported and, as soon as there are
+ * more errors than {@code maxErrors} or more warnings than {@code maxWarnings}, kills the processes still running.
+ * <p>
+ * Killing {@code docker run} or {@code docker exec} only stops the Docker client, so those processes come with the command
+ * killing the Shellcheck process they started in the container.
+ * <p>
+ * Only the violations accepted by the {@link ShellcheckViolationFilter} of the task count.
+ */
+public class ShellcheckViolationLimit {
+
+    private static final Logger LOGGER = Logging.getLogger(ShellcheckViolationLimit.class);
+
+    private final int maxErrors;
+    private final int maxWarnings;
+    private final ShellcheckViolationFilter filter;
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicInteger warnings = new AtomicInteger();
+    private final Map<Process, List<String>> processes = new ConcurrentHashMap<>();
+    private volatile String reason;
+
+    public ShellcheckViolationLimit(int maxErrors, int maxWarnings, ShellcheckViolationFilter filter) {
+        this.maxErrors = maxErrors;
+        this.maxWarnings = maxWarnings;
+        this.filter = filter;
+    }
+
+    public void record(ShellcheckViolation violation) {
+        if (!filter.accepts(violation)) {
+            return;
+        }
+        if ("error".equals(violation.getLevel()) && errors.incrementAndGet() > maxErrors) {
+            reach("more than " + maxErrors + " errors");
+        } else if ("warning".equals(violation.getLevel()) && warnings.incrementAndGet() > maxWarnings) {
+            reach("more than " + maxWarnings + " warnings");
+        }
+    }
+
+    /**
+     * Tracks a running Shellcheck process so it can be killed once the limit is reached.
+     *
+     * @param killCommand The command killing what the process started elsewhere, such as in a container, or empty
+     */
+    public void register(Process process, List<String> killCommand) {
+        processes.keySet().removeIf(running -> !running.isAlive());
+        processes.put(process, killCommand);
+        if (isReached()) {
+            kill(process, killCommand);
+        }
+    }
+
+    public boolean isReached() {
+        return reason != null;
+    }
+
+    /**
+     * What was exceeded, such as {@code more than 10 errors}, or null if the limit was not reached.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    private synchronized void reach(String reason) {
+        if (this.reason != null) {
+            return;
+        }
+        this.reason = reason;
+        processes.forEach(ShellcheckViolationLimit::kill);
+    }
+
+    private static void kill(Process process, List<String> killCommand) {
+        if (!killCommand.isEmpty() && process.isAlive()) {
+            try {
+                run(killCommand, null, LOGGER);
+            } catch (IOException e) {
+                LOGGER.debug("Unable to kill Shellcheck with " + String.join(" ", killCommand), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        process.destroyForcibly();
+    }
+}
@@ -0,0 +1,94 @@
+package com.felipefzdz.gradle.shellcheck;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.felipefzdz.gradle.shellcheck.Shell.exec;
+
+/**
+ * Runs Shellcheck over one shard of the scripts of a {@link Shellcheck} task, streaming its {@code json1} output to a file
+ * through a {@link ShellcheckOutputTee}. The violations parsed on the way are handed over to the task through the
+ * {@link ShellcheckBuildService}, so the output is never parsed again.
+ */
+public abstract class ShellcheckWorkAction implements WorkAction<ShellcheckWorkAction.Parameters> {
+
+    private static final Logger LOGGER = Logging.getLogger(ShellcheckWorkAction.class);
+
+    public interface Parameters extends WorkParameters {
+        ListProperty<String> getCommand();
+
+        /**
+         * The command killing the Shellcheck process started by {@link #getCommand()} in a container, if any.
+         */
+        ListProperty<String> getKillCommand();
+
+        DirectoryProperty getWorkingDir();
+
+        RegularFileProperty getOutputFile();
+
+        Property<ShellcheckBuildService> getBuildService();
+
+        Property<String> getTaskPath();
+    }
+
+    @Override
+    public void execute() {
+        final Parameters parameters = getParameters();
+        final List<String> command = parameters.getCommand().get();
+        final ShellcheckBuildService buildService = parameters.getBuildService().get();
+        final ShellcheckViolationLimit limit = buildService.violationLimit(parameters.getTaskPath().get());
+        if (limit.isReached()) {
+            LOGGER.debug("Skipping Shellcheck shard, found " + limit.getReason());
+            return;
+        }
+        LOGGER.debug("Command to run Shellcheck: " + String.join(" ", command));
+        final File outputFile = parameters.getOutputFile().get().getAsFile();
+        final List<ShellcheckViolation> violations = Collections.synchronizedList(new ArrayList<>());
+        try {
+            final ShellcheckOutputTee.Result<Shell.ExecResult> teed = ShellcheckOutputTee.run(outputFile,
+                    violation -> {
+                        violations.add(violation);
+                        limit.record(violation);
+                    },
+                    output -> buildService.withProcessPermit(() -> limit.isReached() ? null :
+                            exec(command, parameters.getWorkingDir().get().getAsFile(), LOGGER, output,
+                                    process -> limit.register(process, parameters.getKillCommand().get()))));
+            final Shell.ExecResult result = teed.getValue();
+            if (result == null || limit.isReached()) {
+                // Killed or never started, the output is cut short and the task keeps whatever was parsed
+                buildService.putShardResult(outputFile, violations, result != null && teed.getParseFailure() == null);
+                LOGGER.debug("Stopped Shellcheck shard, found " + limit.getReason());
+                return;
+            }
+            if (result.getExitCode() >= 2) {
+                // 1 only means violations were found, anything above means some scripts were not checked
+                throw new GradleException(String.format("Shellcheck exited with code %d: %s", result.getExitCode(),
+                        result.getErrorOutput().isEmpty() ? "no error output" : result.getErrorOutput()));
+            }
+            if (teed.getParseFailure() != null) {
+                final String details = result.getErrorOutput().isEmpty() ? teed.getParseFailure().getMessage() : result.getErrorOutput();
+                throw new GradleException(String.format("Error while executing shellcheck: %s", details), teed.getParseFailure());
+            }
+            if (!result.getErrorOutput().isEmpty()) {
+                LOGGER.warn("Shellcheck error output: " + result.getErrorOutput());
+            }
+            buildService.putShardResult(outputFile, violations, true);
+            LOGGER.debug("Shellcheck reported " + violations.size() + " violations");
+        } catch (IOException | InterruptedException e) {
+            throw new GradleException("Error while running Shellcheck", e);
+        }
+    }
+}
@@ -102,10 +102,21 @@
       </table>
     	<hr size="1"/>
 
+			<xsl:if test="@truncated">
+				<p><b>Shellcheck stopped early after finding <xsl:value-of select="@truncated"/>, this report only shows some of the violations.</b></p>
+				<hr size="1" width="100%" align="left"/>
+			</xsl:if>
+
 			<!-- Summary part -->
 			<xsl:apply-templates select="." mode="summary"/>
 			<hr size="1" width="100%" align="left"/>
 
+			<!-- Totals of the aggregated tasks, only found in the aggregate report -->
+			<xsl:if test="project">
+				<xsl:apply-templates select="." mode="projects"/>
+				<hr size="1" width="100%" align="left"/>
+			</xsl:if>
+
 			<!-- Package List part -->
 			<xsl:apply-templates select="." mode="filelist"/>
 			<hr size="1" width="100%" align="left"/>
@@ -181,6 +192,53 @@
 		</table>
 	</xsl:template>
 
+	<xsl:template match="checkstyle" mode="projects">
+		<h3>Tasks</h3>
+		<table class="log" border="0" cellpadding="5" cellspacing="2" width="100%">
+		<tr>
+			<th>Task</th>
+			<th>Files</th>
+			<th>Violations</th>
+			<th>Error</th>
+			<th>Warning</th>
+			<th>Info</th>
+			<th>Style</th>
+		</tr>
+		<xsl:for-each select="project">
+			<xsl:sort data-type="number" order="descending" select="@violations"/>
+			<tr>
+				<xsl:call-template name="alternated-row"/>
+				<td><xsl:value-of select="@path"/><xsl:if test="@complete = 'false'"> (only some of the scripts were checked)</xsl:if></td>
+				<td><xsl:value-of select="@files"/></td>
+				<td><xsl:value-of select="@violations"/></td>
+				<td><xsl:value-of select="@error"/></td>
+				<td><xsl:value-of select="@warning"/></td>
+				<td><xsl:value-of select="@info"/></td>
+				<td><xsl:value-of select="@style"/></td>
+			</tr>
+		</xsl:for-each>
+		</table>
+		<h3>Rules</h3>
+		<table class="log" border="0" cellpadding="5" cellspacing="2" width="100%">
+		<tr>
+			<th>Rule</th>
+			<th>Level</th>
+			<th>Violations</th>
+			<th>Message</th>
+		</tr>
+		<xsl:for-each select="rule">
+			<xsl:sort data-type="number" order="descending" select="@violations"/>
+			<tr>
+				<xsl:call-template name="alternated-row"/>
+				<td><a href="https://www.shellcheck.net/wiki/{@id}"><xsl:value-of select="@id"/></a></td>
+				<td><xsl:value-of select="@level"/></td>
+				<td><xsl:value-of select="@violations"/></td>
+				<td><xsl:value-of select="@message"/></td>
+			</tr>
+		</xsl:for-each>
+		</table>
+	</xsl:template>
+
   <xsl:template name="alternated-row">
     <xsl:attribute name="class">
       <xsl:if test="position() mod 2 = 1">a</xsl:if>